@@ -0,0 +1,60 @@
+package com.github.momogentoo.pdfboxprintln.cli;
+
+import java.io.PrintStream;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * ConversionStats
+ * <p>
+ * Thread-safe counters of a conversion run, used to report throughput
+ */
+public class ConversionStats {
+    private final long startNanos = System.nanoTime();
+    private final AtomicLong files = new AtomicLong();
+    private final AtomicLong failedFiles = new AtomicLong();
+    private final AtomicLong lines = new AtomicLong();
+    private final AtomicLong pages = new AtomicLong();
+    private final AtomicLong inputBytes = new AtomicLong();
+    private final AtomicLong outputBytes = new AtomicLong();
+
+    /**
+     * Record a converted document
+     * @param lineCount Lines read from input
+     * @param pageCount Pages written to output
+     * @param inputByteCount Bytes read from input
+     * @param outputByteCount Bytes written to output
+     */
+    public void addDocument(long lineCount, long pageCount, long inputByteCount, long outputByteCount) {
+        files.incrementAndGet();
+        lines.addAndGet(lineCount);
+        pages.addAndGet(pageCount);
+        inputBytes.addAndGet(inputByteCount);
+        outputBytes.addAndGet(outputByteCount);
+    }
+
+    public void addFailure() {
+        failedFiles.incrementAndGet();
+    }
+
+    public long getFailedFiles() {
+        return failedFiles.get();
+    }
+
+    /**
+     * Print a summary of counters and throughput since this instance was created
+     * @param out
+     */
+    public void print(PrintStream out) {
+        double seconds = Math.max(System.nanoTime() - startNanos, 1) / 1e9;
+
+        // Root locale keeps '.' as decimal separator, output is parsed as key=value pairs
+        out.println(String.format(Locale.ROOT, "files=%d failed=%d lines=%d pages=%d input_bytes=%d output_bytes=%d elapsed_s=%.3f",
+                files.get(), failedFiles.get(), lines.get(), pages.get(), inputBytes.get(), outputBytes.get(), seconds));
+        out.println(String.format(Locale.ROOT, "lines/s=%.1f pages/s=%.1f input_MB/s=%.2f output_MB/s=%.2f",
+                lines.get() / seconds,
+                pages.get() / seconds,
+                inputBytes.get() / seconds / (1024 * 1024),
+                outputBytes.get() / seconds / (1024 * 1024)));
+    }
+}
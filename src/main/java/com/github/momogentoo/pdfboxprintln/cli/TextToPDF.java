@@ -0,0 +1,317 @@
+package com.github.momogentoo.pdfboxprintln.cli;
+
+import com.github.momogentoo.pdfboxprintln.core.CheckpointStore;
+import com.github.momogentoo.pdfboxprintln.core.DirectPDFRenderBackend;
+import com.github.momogentoo.pdfboxprintln.core.FontFallbackChain;
+import com.github.momogentoo.pdfboxprintln.core.PDFBuilder;
+import com.github.momogentoo.pdfboxprintln.core.TextAlignment;
+import org.apache.log4j.Logger;
+import org.apache.pdfbox.exceptions.COSVisitorException;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * TextToPDF
+ * <p>
+ * Command line converter from plain text to PDF.
+ * <ul>
+ *     <li>Without --input-dir, stdin is streamed into a single PDF, page contents are buffered in a scratch file
+ *     (with direct backend, finished pages are flushed to a scratch file once body exceeds 1 MB)</li>
+ *     <li>With --input-dir, every matching file in the directory is converted by a pool of workers</li>
+ * </ul>
+ * Throughput stats are printed to stderr at the end of each run
+ */
+public class TextToPDF {
+    private static final Logger LOGGER = Logger.getLogger(TextToPDF.class);
+    private static final String PDF_EXTENSION = ".pdf";
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final TextToPDFOptions options;
+    // chain shared by all documents, null if there is none
+    private final FontFallbackChain fontFallbackChain;
+    private final ConversionStats stats = new ConversionStats();
+
+    public TextToPDF(TextToPDFOptions options) throws IOException {
+        this.options = options;
+        this.fontFallbackChain = options.createFontFallbackChain();
+    }
+
+    public static void main(String[] args) {
+        TextToPDFOptions options;
+
+        try {
+            options = TextToPDFOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.print(TextToPDFOptions.usage());
+            System.exit(2);
+            return;
+        }
+
+        if (options.isHelp()) {
+            System.out.print(TextToPDFOptions.usage());
+            return;
+        }
+
+        TextToPDF converter = null;
+        boolean success;
+
+        try {
+            converter = new TextToPDF(options);
+            success = options.isDirectoryMode() ? converter.convertDirectory() : converter.convertStdin();
+        } catch (Exception e) {
+            LOGGER.error("Conversion failed", e);
+            System.err.println("Conversion failed: " + e);
+            success = false;
+        } catch (OutOfMemoryError e) {
+            // Heap is released with the failed conversion, stats and exit code can still be reported
+            LOGGER.error("Conversion ran out of memory", e);
+            System.err.println("Conversion failed: " + e + ", increase -Xmx or use fewer --workers");
+            success = false;
+        }
+
+        if (converter != null) {
+            converter.getStats().print(System.err);
+        }
+        System.exit(success ? 0 : 1);
+    }
+
+    public ConversionStats getStats() {
+        return stats;
+    }
+
+    /**
+     * Stream stdin into a PDF written to output file, or to stdout if no output file is given
+     * @return true on success, false if conversion failed (e.g. hit a limit), which is recorded in stats
+     * @throws IOException If output file can't be created
+     */
+    public boolean convertStdin() throws IOException {
+        CountingInputStream in = new CountingInputStream(System.in);
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, options.getEncoding()));
+        File outputFile = options.getOutputFile();
+        OutputStream out = outputFile != null
+                ? new BufferedOutputStream(new FileOutputStream(outputFile))
+                : new BufferedOutputStream(new FileOutputStream(FileDescriptor.out));
+
+        boolean success = false;
+
+        try {
+            try {
+                PDFBuilder pdfBuilder = options.isDirectBackend()
+                        ? new PDFBuilder(new DirectPDFRenderBackend())
+                        : new PDFBuilder(new File(System.getProperty("java.io.tmpdir")));
+                convert(reader, in, pdfBuilder, out,
+                        options.createCheckpointStore(outputFile != null ? outputFile.getName() : "stdout"));
+            } finally {
+                out.close();
+            }
+            success = true;
+        } catch (Exception e) {
+            LOGGER.error("Unable to convert stdin", e);
+            System.err.println("Unable to convert stdin: " + e);
+            stats.addFailure();
+        } finally {
+            // Don't leave a truncated or empty document behind (limit hit, out of memory...), same as directory mode
+            if (!success && outputFile != null) {
+                outputFile.delete();
+            }
+        }
+
+        return success;
+    }
+
+    /**
+     * Convert all files with configured extension in input directory, in parallel
+     * @return true if every file is converted
+     * @throws IOException
+     * @throws InterruptedException
+     */
+    public boolean convertDirectory() throws IOException, InterruptedException {
+        final File outputDirectory = options.getOutputDirectory();
+        File[] inputFiles = options.getInputDirectory().listFiles(
+                file -> file.isFile() && file.getName().endsWith(options.getExtension()));
+
+        if (inputFiles == null) {
+            throw new IOException("Not a readable directory: " + options.getInputDirectory());
+        }
+        if (!outputDirectory.isDirectory() && !outputDirectory.mkdirs()) {
+            throw new IOException("Unable to create output directory: " + outputDirectory);
+        }
+
+        // Largest files first, so a big file picked up last doesn't leave other workers idle
+        Arrays.sort(inputFiles, (a, b) -> Long.compare(b.length(), a.length()));
+
+        ExecutorService executor = Executors.newFixedThreadPool(options.getWorkers());
+        List<Future<?>> futures = new ArrayList<Future<?>>(inputFiles.length);
+
+        try {
+            for (final File inputFile : inputFiles) {
+                futures.add(executor.submit(() -> {
+                    try {
+                        convertFile(inputFile, new File(outputDirectory, toPDFName(inputFile.getName())));
+                    } catch (Exception e) {
+                        LOGGER.error("Unable to convert " + inputFile, e);
+                        System.err.println("Unable to convert " + inputFile + ": " + e);
+                        stats.addFailure();
+                    }
+                }));
+            }
+
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    // Failures are recorded by the task itself
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        return stats.getFailedFiles() == 0;
+    }
+
+    private void convertFile(File inputFile, File outputFile) throws IOException, COSVisitorException {
+        CountingInputStream in = new CountingInputStream(new FileInputStream(inputFile));
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, options.getEncoding()));
+
+        boolean success = false;
+
+        try {
+            OutputStream out = new BufferedOutputStream(new FileOutputStream(outputFile));
+
+            try {
+                PDFBuilder pdfBuilder = options.isDirectBackend() ? new PDFBuilder(new DirectPDFRenderBackend()) : new PDFBuilder();
+                convert(reader, in, pdfBuilder, out, options.createCheckpointStore(inputFile.getName()));
+            } finally {
+                out.close();
+            }
+            success = true;
+        } finally {
+            // Don't leave a truncated document behind
+            if (!success) {
+                outputFile.delete();
+            }
+            reader.close();
+        }
+    }
+
+    /**
+     * Convert text lines from reader into a PDF, builder is closed afterwards
+     * @param reader Text input
+     * @param in Input stream under reader, counting bytes read
+     * @param pdfBuilder Builder to print into
+     * @param out PDF output
+     * @param checkpointStore Store to resume from and checkpoint into, null for none
+     * @throws IOException
+     * @throws COSVisitorException
+     */
+    private void convert(BufferedReader reader, CountingInputStream in, PDFBuilder pdfBuilder, OutputStream out,
+                         CheckpointStore checkpointStore) throws IOException, COSVisitorException {
+        CountingOutputStream countingOut = new CountingOutputStream(out);
+        long lineCount = 0;
+        long skippedLines = 0;
+        // Fingerprint of lines before current one, so that a checkpoint of other input is rejected on resume
+        long fingerprint = FNV_OFFSET_BASIS;
+
+        try {
+            options.applyTo(pdfBuilder);
+
+            pdfBuilder.setFontFallbackChain(fontFallbackChain);
+
+            // Input position is line number, skip lines printed before checkpoint
+            if (checkpointStore != null) {
+                pdfBuilder.setCheckpointStore(checkpointStore);
+                long resumedLine = pdfBuilder.resumeFromCheckpoint();
+
+                String line;
+                while (skippedLines < resumedLine && (line = reader.readLine()) != null) {
+                    fingerprint = fingerprint(fingerprint, line);
+                    skippedLines++;
+                }
+            }
+
+            StringBuilder buffer = new StringBuilder();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                pdfBuilder.markInputPosition(skippedLines + lineCount, fingerprint);
+                lineCount++;
+                if (checkpointStore != null) {
+                    fingerprint = fingerprint(fingerprint, line);
+                }
+                pdfBuilder.printlnWrapped(sanitize(line, buffer), TextAlignment.LEFT);
+            }
+
+            // Empty input still gets a (blank) page
+            if (pdfBuilder.getCurrentPage() == null) {
+                pdfBuilder.forceNewPage();
+            }
+
+            pdfBuilder.save(countingOut);
+            countingOut.flush();
+        } finally {
+            pdfBuilder.close();
+        }
+
+        stats.addDocument(lineCount, pdfBuilder.getPageNumber(), in.getCount(), countingOut.getCount());
+    }
+
+    /**
+     * Expand tabs and, unless a font fallback chain is used, replace characters that can't be drawn with default font encoding
+     * @param line
+     * @param buffer Reusable buffer
+     * @return
+     */
+    private String sanitize(String line, StringBuilder buffer) {
+        buffer.setLength(0);
+
+        for (int i = 0; i < line.length(); ++i) {
+            char c = line.charAt(i);
+
+            if (c == '\t') {
+                int spaces = options.getTabWidth() - buffer.length() % options.getTabWidth();
+                for (int j = 0; j < spaces; ++j) {
+                    buffer.append(' ');
+                }
+            }
+            else if (c < ' ' || (c >= 0x7f && c < 0xa0)) {
+                // Drop control characters
+            }
+            else if (c > 0xff && !options.hasFonts()) {
+                buffer.append('?');
+            }
+            else {
+                buffer.append(c);
+            }
+        }
+
+        return buffer.toString();
+    }
+
+    /**
+     * Add a line to a 64-bit FNV-1a hash of lines
+     * @param hash Hash of lines before
+     * @param line
+     * @return
+     */
+    private static long fingerprint(long hash, String line) {
+        for (int i = 0; i < line.length(); ++i) {
+            hash = (hash ^ line.charAt(i)) * FNV_PRIME;
+        }
+
+        return (hash ^ '\n') * FNV_PRIME;
+    }
+
+    private static String toPDFName(String fileName) {
+        int dot = fileName.lastIndexOf('.');
+        return (dot > 0 ? fileName.substring(0, dot) : fileName) + PDF_EXTENSION;
+    }
+}
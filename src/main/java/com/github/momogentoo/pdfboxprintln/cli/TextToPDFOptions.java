@@ -0,0 +1,341 @@
+package com.github.momogentoo.pdfboxprintln.cli;
+
+import com.github.momogentoo.pdfboxprintln.core.CheckpointStore;
+import com.github.momogentoo.pdfboxprintln.core.FontFallbackChain;
+import com.github.momogentoo.pdfboxprintln.core.PDFBuilder;
+import com.github.momogentoo.pdfboxprintln.core.PDFPageSize;
+import com.github.momogentoo.pdfboxprintln.core.PageOrientation;
+import com.github.momogentoo.pdfboxprintln.core.PreparedFont;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * TextToPDFOptions
+ * <p>
+ * Command line options of {@link TextToPDF}, mapped onto {@link PDFBuilder} settings
+ */
+public class TextToPDFOptions {
+    private static final int DEFAULT_TAB_WIDTH = 4;
+    private static final String DEFAULT_EXTENSION = ".txt";
+    private static final String TRUETYPE_EXTENSION = ".ttf";
+
+    // Options followed by a value
+    private static final Set<String> VALUE_OPTIONS = new HashSet<String>(Arrays.asList(
+            "-o", "--output", "--input-dir", "--output-dir", "--extension", "--workers", "--page-size",
+            "--orientation", "--font-size", "--margin", "--page-number-pattern", "--tab-width", "--encoding",
+            "--backend", "--timeout", "--max-pages", "--max-output-bytes", "--checkpoint-dir", "--checkpoint-pages",
+            "--fonts"));
+
+    private boolean help = false;
+
+    private PDFPageSize pageSize = PDFPageSize.A4;
+    private PageOrientation pageOrientation = PageOrientation.PORTRAIT;
+    private Integer fontSize;
+    private Float pageMargin;
+    private String pageNumberPattern;
+    private boolean outputPageNumber = true;
+    private int tabWidth = DEFAULT_TAB_WIDTH;
+    private Charset encoding = Charset.forName("UTF-8");
+    // Standard 14 font names
+    private List<String> fonts = new ArrayList<String>();
+    private boolean directBackend = false;
+
+    // limits of each generated document
+    private Long timeoutMillis;
+    private Integer maxPages;
+    private Long maxOutputBytes;
+
+    // checkpoints of each generated document, direct backend only
+    private File checkpointDirectory;
+    private int checkpointPages = CheckpointStore.DEFAULT_INTERVAL;
+
+    // stdin mode
+    private File outputFile;
+
+    // directory mode
+    private File inputDirectory;
+    private File outputDirectory;
+    private String extension = DEFAULT_EXTENSION;
+    private int workers = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Parse command line arguments
+     *
+     * @param args
+     * @return Parsed options
+     * @throws IllegalArgumentException if arguments are invalid
+     */
+    public static TextToPDFOptions parse(String[] args) {
+        TextToPDFOptions options = new TextToPDFOptions();
+
+        for (int i = 0; i < args.length; ++i) {
+            String arg = args[i];
+
+            if ("--no-page-number".equals(arg)) {
+                options.outputPageNumber = false;
+                continue;
+            }
+            if ("-h".equals(arg) || "--help".equals(arg)) {
+                options.help = true;
+                continue;
+            }
+
+            if (!VALUE_OPTIONS.contains(arg)) {
+                throw new IllegalArgumentException("Unknown option " + arg);
+            }
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for option " + arg);
+            }
+            String value = args[++i];
+
+            if ("-o".equals(arg) || "--output".equals(arg)) {
+                options.outputFile = "-".equals(value) ? null : new File(value);
+            }
+            else if ("--input-dir".equals(arg)) {
+                options.inputDirectory = new File(value);
+            }
+            else if ("--output-dir".equals(arg)) {
+                options.outputDirectory = new File(value);
+            }
+            else if ("--extension".equals(arg)) {
+                options.extension = value;
+            }
+            else if ("--workers".equals(arg)) {
+                options.workers = parsePositiveInt(arg, value);
+            }
+            else if ("--page-size".equals(arg)) {
+                options.pageSize = PDFPageSize.valueOf(value.toUpperCase());
+            }
+            else if ("--orientation".equals(arg)) {
+                options.pageOrientation = PageOrientation.valueOf(value.toUpperCase());
+            }
+            else if ("--font-size".equals(arg)) {
+                options.fontSize = parsePositiveInt(arg, value);
+            }
+            else if ("--margin".equals(arg)) {
+                options.pageMargin = Float.parseFloat(value);
+            }
+            else if ("--page-number-pattern".equals(arg)) {
+                options.pageNumberPattern = value;
+            }
+            else if ("--tab-width".equals(arg)) {
+                options.tabWidth = parsePositiveInt(arg, value);
+            }
+            else if ("--encoding".equals(arg)) {
+                options.encoding = Charset.forName(value);
+            }
+            else if ("--backend".equals(arg)) {
+                if (!"pdfbox".equals(value) && !"direct".equals(value)) {
+                    throw new IllegalArgumentException("Unknown backend " + value);
+                }
+                options.directBackend = "direct".equals(value);
+            }
+            else if ("--timeout".equals(arg)) {
+                options.timeoutMillis = parsePositiveLong(arg, value) * 1000;
+            }
+            else if ("--max-pages".equals(arg)) {
+                options.maxPages = parsePositiveInt(arg, value);
+            }
+            else if ("--max-output-bytes".equals(arg)) {
+                options.maxOutputBytes = parsePositiveLong(arg, value);
+            }
+            else if ("--checkpoint-dir".equals(arg)) {
+                options.checkpointDirectory = new File(value);
+            }
+            else if ("--checkpoint-pages".equals(arg)) {
+                options.checkpointPages = parsePositiveInt(arg, value);
+            }
+            else if ("--fonts".equals(arg)) {
+                for (String name : value.split(",")) {
+                    name = name.trim();
+
+                    // PDFBox 1.8 draws TrueType fonts in WinAnsiEncoding only, they add no characters to a chain
+                    if (name.toLowerCase(Locale.ROOT).endsWith(TRUETYPE_EXTENSION)) {
+                        throw new IllegalArgumentException("TrueType fonts can't extend character coverage, "
+                                + "use standard 14 fonts (e.g. Helvetica,Symbol,ZapfDingbats): " + name);
+                    }
+
+                    // Fails on a name which is not a standard 14 font
+                    PreparedFont.standard(name);
+                    options.fonts.add(name);
+                }
+            }
+        }
+
+        if ((options.inputDirectory == null) != (options.outputDirectory == null)) {
+            throw new IllegalArgumentException("--input-dir and --output-dir must be used together");
+        }
+        if (options.checkpointDirectory != null && !options.directBackend) {
+            throw new IllegalArgumentException("--checkpoint-dir needs --backend direct");
+        }
+
+        return options;
+    }
+
+    private static int parsePositiveInt(String option, String value) {
+        int result = Integer.parseInt(value);
+
+        if (result <= 0) {
+            throw new IllegalArgumentException("Value of option " + option + " must be positive: " + value);
+        }
+
+        return result;
+    }
+
+    private static long parsePositiveLong(String option, String value) {
+        long result = Long.parseLong(value);
+
+        if (result <= 0) {
+            throw new IllegalArgumentException("Value of option " + option + " must be positive: " + value);
+        }
+
+        return result;
+    }
+
+    /**
+     * Create checkpoint store of a document
+     * @param name Name of document, unique in checkpoint directory
+     * @return Store, or null if option --checkpoint-dir is not set
+     * @throws IOException
+     */
+    public CheckpointStore createCheckpointStore(String name) throws IOException {
+        if (checkpointDirectory == null) {
+            return null;
+        }
+        if (!checkpointDirectory.isDirectory() && !checkpointDirectory.mkdirs()) {
+            throw new IOException("Unable to create checkpoint directory: " + checkpointDirectory);
+        }
+
+        return new CheckpointStore(checkpointDirectory, name, checkpointPages);
+    }
+
+    /**
+     * @return true if --fonts option is set
+     */
+    public boolean hasFonts() {
+        return !fonts.isEmpty();
+    }
+
+    /**
+     * Compile font fallback chain of --fonts option, it can be shared by all builders of a run
+     * @return Font fallback chain, or null if option is not set
+     */
+    public FontFallbackChain createFontFallbackChain() {
+        if (fonts.isEmpty()) {
+            return null;
+        }
+
+        PreparedFont[] chain = new PreparedFont[fonts.size()];
+        for (int i = 0; i < chain.length; ++i) {
+            chain[i] = PreparedFont.standard(fonts.get(i));
+        }
+
+        return new FontFallbackChain(chain);
+    }
+
+    /**
+     * Apply page and text settings to a builder, before anything is printed
+     * @param pdfBuilder
+     */
+    public void applyTo(PDFBuilder pdfBuilder) {
+        pdfBuilder.setPageSize(pageSize);
+        pdfBuilder.setPageOrientation(pageOrientation);
+        pdfBuilder.setOutputPageNumber(outputPageNumber);
+
+        if (fontSize != null) {
+            pdfBuilder.setTextFontSize(fontSize);
+        }
+        if (pageMargin != null) {
+            pdfBuilder.setPageMargin(pageMargin);
+        }
+        if (pageNumberPattern != null) {
+            pdfBuilder.setPageNumberPattern(pageNumberPattern);
+        }
+
+        // Timeout starts now, conversion starts right after settings are applied
+        if (timeoutMillis != null) {
+            pdfBuilder.setTimeout(timeoutMillis);
+        }
+        if (maxPages != null) {
+            pdfBuilder.setMaxPages(maxPages);
+        }
+        if (maxOutputBytes != null) {
+            pdfBuilder.setMaxOutputBytes(maxOutputBytes);
+        }
+    }
+
+    public static String usage() {
+        return "Usage:\n"
+                + "  TextToPDF [options] [-o output.pdf] < input.txt\n"
+                + "  TextToPDF [options] --input-dir DIR --output-dir DIR [--workers N] [--extension .txt]\n"
+                + "Options:\n"
+                + "  --page-size LETTER|A0..A6      (default A4)\n"
+                + "  --orientation PORTRAIT|LANDSCAPE\n"
+                + "  --font-size N\n"
+                + "  --margin N\n"
+                + "  --page-number-pattern PATTERN  (e.g. \"Page %d\")\n"
+                + "  --no-page-number\n"
+                + "  --fonts FONT[,FONT...]         standard 14 fonts to fall back on, in order (e.g. Helvetica,Symbol,ZapfDingbats)\n"
+                + "  --tab-width N                  (default " + DEFAULT_TAB_WIDTH + ")\n"
+                + "  --encoding CHARSET             (default UTF-8)\n"
+                + "  --backend pdfbox|direct        render backend (default pdfbox), direct writes PDF without PDFBox object model\n"
+                + "  --timeout SECONDS              abort a document taking longer\n"
+                + "  --max-pages N                  abort a document growing beyond N pages\n"
+                + "  --max-output-bytes N           abort a document growing beyond N bytes\n"
+                + "  --checkpoint-dir DIR           checkpoint documents into DIR and resume them from there when run again\n"
+                + "                                 with same input and options, needs --backend direct\n"
+                + "  --checkpoint-pages N           pages between checkpoints (default " + CheckpointStore.DEFAULT_INTERVAL + ")\n"
+                + "  -h, --help                     print this help\n";
+    }
+
+    /**
+     * @return true if --help option is set, nothing is to be converted
+     */
+    public boolean isHelp() {
+        return help;
+    }
+
+    public boolean isDirectoryMode() {
+        return inputDirectory != null;
+    }
+
+    public File getOutputFile() {
+        return outputFile;
+    }
+
+    public File getInputDirectory() {
+        return inputDirectory;
+    }
+
+    public File getOutputDirectory() {
+        return outputDirectory;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public int getWorkers() {
+        return workers;
+    }
+
+    public int getTabWidth() {
+        return tabWidth;
+    }
+
+    public boolean isDirectBackend() {
+        return directBackend;
+    }
+
+    public Charset getEncoding() {
+        return encoding;
+    }
+}
@@ -0,0 +1,19 @@
+package com.github.momogentoo.pdfboxprintln.core;
+
+/**
+ * CancellationToken
+ * <p>
+ * Cooperative cancellation of a generation. Cancel it from any thread, PDFBuilder stops at its next check
+ * (next printed row or page boundary) with a {@link GenerationLimitException}
+ */
+public class CancellationToken {
+    private volatile boolean cancelled = false;
+
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+}
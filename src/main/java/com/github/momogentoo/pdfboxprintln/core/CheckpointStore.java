@@ -0,0 +1,239 @@
+package com.github.momogentoo.pdfboxprintln.core;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.util.zip.CRC32;
+
+/**
+ * CheckpointStore
+ * <p>
+ * Local files holding checkpoints of a long generation, so that a crashed or stopped run can resume
+ * from the last one instead of starting over.
+ * <ul>
+ *     <li>&lt;name&gt;.body - document body written so far (completed pages, fonts, images). From the first
+ *     checkpoint on, backend writes its body straight into this file</li>
+ *     <li>&lt;name&gt;.ckpt - log of checkpoints, each appended as a record with builder cursor, input position and
+ *     fingerprint, body length and what was added to the tables describing body since previous checkpoint</li>
+ * </ul>
+ * Both are synced to disk before a checkpoint counts as written, so writing one costs the pages since previous one,
+ * not the whole document. A torn last record and bytes appended to body after the last complete checkpoint are
+ * discarded on resume. See {@link PDFBuilder#setCheckpointStore(CheckpointStore)}.
+ * <p>
+ * Record layout: int payload length, payload, int CRC32 of payload.
+ */
+public class CheckpointStore implements Closeable {
+    public static final int DEFAULT_INTERVAL = 50;
+
+    private static final int MAGIC = 0x5042434b; // PBCK
+    private static final short VERSION = 2;
+    private static final int HEADER_LENGTH = 6;
+    // payload length before and CRC32 after payload of each record
+    private static final int RECORD_OVERHEAD = 8;
+    private static final String BODY_SUFFIX = ".body";
+    private static final String CHECKPOINT_SUFFIX = ".ckpt";
+
+    private final File bodyFile;
+    private final File checkpointFile;
+    private final int interval;
+
+    // body file and checkpoint log, open from first checkpoint written or read on
+    private RandomAccessFile body;
+    private RandomAccessFile checkpoints;
+    // length of complete records in log, next record is appended there
+    private long checkpointsLength;
+    private final ByteArrayOutputStream record = new ByteArrayOutputStream();
+    private final CRC32 crc = new CRC32();
+
+    /**
+     * Create a store checkpointing every {@value #DEFAULT_INTERVAL} pages
+     * @param directory Directory of checkpoint files
+     * @param name Name of generation, base name of its files
+     */
+    public CheckpointStore(File directory, String name) {
+        this(directory, name, DEFAULT_INTERVAL);
+    }
+
+    /**
+     * @param directory Directory of checkpoint files
+     * @param name Name of generation, base name of its files
+     * @param interval Number of pages between checkpoints
+     */
+    public CheckpointStore(File directory, String name, int interval) {
+        if (interval <= 0) {
+            throw new IllegalArgumentException("Checkpoint interval must be positive: " + interval);
+        }
+
+        this.bodyFile = new File(directory, name + BODY_SUFFIX);
+        this.checkpointFile = new File(directory, name + CHECKPOINT_SUFFIX);
+        this.interval = interval;
+    }
+
+    public int getInterval() {
+        return interval;
+    }
+
+    /**
+     * @return true if a checkpoint was written and not deleted yet
+     */
+    public boolean exists() {
+        return checkpointFile.isFile();
+    }
+
+    /**
+     * Persist a checkpoint at a page boundary
+     * @param pdfBuilder Builder, to write cursor and input position of
+     * @param backend Backend of builder, with no page in progress
+     * @throws IOException
+     */
+    void write(PDFBuilder pdfBuilder, DirectPDFRenderBackend backend) throws IOException {
+        // A new generation overwrites files of a previous one
+        if (body == null) {
+            open();
+            checkpoints.setLength(0);
+            checkpoints.writeInt(MAGIC);
+            checkpoints.writeShort(VERSION);
+            checkpointsLength = HEADER_LENGTH;
+        }
+
+        backend.transferBodyTo(body.getChannel());
+        backend.flushBody();
+        body.getChannel().force(false);
+
+        record.reset();
+        DataOutputStream out = new DataOutputStream(record);
+        pdfBuilder.writeCheckpointState(out);
+        backend.writeCheckpointState(out);
+
+        byte[] payload = record.toByteArray();
+        crc.reset();
+        crc.update(payload, 0, payload.length);
+
+        ByteBuffer buffer = ByteBuffer.allocate(payload.length + RECORD_OVERHEAD);
+        buffer.putInt(payload.length).put(payload).putInt((int) crc.getValue());
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            checkpoints.getChannel().write(buffer, checkpointsLength + buffer.position());
+        }
+        checkpoints.getChannel().force(false);
+        checkpointsLength += buffer.limit();
+
+        backend.checkpointWritten();
+    }
+
+    /**
+     * Restore checkpoints into a new builder and its backend, up to the last complete one
+     * @param pdfBuilder New builder
+     * @param backend New backend of builder
+     * @return false if there is no complete checkpoint, builder and backend are unchanged then
+     * @throws IOException Also if checkpoint was written with other builder settings, which is detected at first
+     * record before builder or backend change
+     */
+    boolean read(PDFBuilder pdfBuilder, DirectPDFRenderBackend backend) throws IOException {
+        close();
+        open();
+
+        try {
+            // Header itself may be torn if first checkpoint was interrupted
+            if (checkpoints.length() < HEADER_LENGTH) {
+                close();
+                return false;
+            }
+
+            DataInputStream in = new DataInputStream(new BufferedInputStream(
+                    Channels.newInputStream(checkpoints.getChannel())));
+            if (in.readInt() != MAGIC || in.readShort() != VERSION) {
+                throw new IOException("Not a checkpoint of version " + VERSION + ": " + checkpointFile);
+            }
+
+            checkpointsLength = HEADER_LENGTH;
+            byte[] payload;
+            while ((payload = readRecord(in)) != null) {
+                DataInputStream recordIn = new DataInputStream(new ByteArrayInputStream(payload));
+                pdfBuilder.readCheckpointState(recordIn);
+                backend.readCheckpointState(recordIn);
+                checkpointsLength += payload.length + RECORD_OVERHEAD;
+            }
+
+            if (checkpointsLength == HEADER_LENGTH) {
+                close();
+                return false;
+            }
+
+            // Next checkpoint overwrites a torn record, backend cuts off anything appended to body after checkpoint
+            checkpoints.setLength(checkpointsLength);
+            backend.resumeBody(body.getChannel());
+        } catch (IOException e) {
+            close();
+            throw e;
+        }
+
+        return true;
+    }
+
+    /**
+     * @return Payload of next record, or null at end of log or at a torn record
+     */
+    private byte[] readRecord(DataInputStream in) throws IOException {
+        long remaining = checkpoints.length() - checkpointsLength;
+        if (remaining < RECORD_OVERHEAD) {
+            return null;
+        }
+
+        int length = in.readInt();
+        if (length < 0 || length > remaining - RECORD_OVERHEAD) {
+            return null;
+        }
+
+        byte[] payload = new byte[length];
+        in.readFully(payload);
+        crc.reset();
+        crc.update(payload, 0, length);
+
+        return in.readInt() == (int) crc.getValue() ? payload : null;
+    }
+
+    private void open() throws IOException {
+        body = new RandomAccessFile(bodyFile, "rw");
+        try {
+            checkpoints = new RandomAccessFile(checkpointFile, "rw");
+        } catch (IOException e) {
+            close();
+            throw e;
+        }
+    }
+
+    /**
+     * Delete checkpoint files, once generation is complete
+     * @throws IOException
+     */
+    public void delete() throws IOException {
+        close();
+
+        for (File file : new File[]{checkpointFile, bodyFile}) {
+            if (file.exists() && !file.delete()) {
+                throw new IOException("Unable to delete " + file);
+            }
+        }
+    }
+
+    /**
+     * Release checkpoint files, keeping them
+     * @throws IOException
+     */
+    public void close() throws IOException {
+        try {
+            if (body != null) {
+                body.close();
+            }
+        } finally {
+            body = null;
+
+            if (checkpoints != null) {
+                RandomAccessFile file = checkpoints;
+                checkpoints = null;
+                file.close();
+            }
+        }
+    }
+}
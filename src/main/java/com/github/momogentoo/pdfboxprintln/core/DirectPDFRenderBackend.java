@@ -0,0 +1,645 @@
+package com.github.momogentoo.pdfboxprintln.core;
+
+import java.awt.*;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.Deflater;
+
+/**
+ * DirectPDFRenderBackend
+ * <p>
+ * Lean render backend writing PDF operators and objects straight into bytes, without PDFBox object model.
+ * <p>
+ * Each page is written out as soon as next page begins: its content stream is appended to the document body
+ * and only its object number is kept, together with an offset per object for the cross reference table.
+ * Body stays in memory while it is small, beyond {@value #DEFAULT_SPILL_THRESHOLD} bytes finished objects are
+ * flushed to a scratch file (or to the checkpoint body file, see {@link CheckpointStore}), which is copied out on save.
+ * Fonts must be Standard 14 Type1 fonts, they are referenced by name and never embedded.
+ */
+public class DirectPDFRenderBackend implements RenderBackend {
+    private static final byte[] HEADER = {'%', 'P', 'D', 'F', '-', '1', '.', '4', '\n', '%', (byte) 0xe2, (byte) 0xe3, (byte) 0xcf, (byte) 0xd3, '\n'};
+    private static final int CATALOG_OBJECT = 1;
+    private static final int PAGES_OBJECT = 2;
+    private static final int DEFAULT_SPILL_THRESHOLD = 1024 * 1024;
+    private static final int FLUSH_SIZE = 64 * 1024;
+    private static final int INITIAL_BODY_CAPACITY = 64 * 1024;
+    private static final int INITIAL_CONTENT_CAPACITY = 8 * 1024;
+
+    private final boolean compress;
+    private final File scratchDirectory;
+    private final int spillThreshold;
+
+    // document body, i.e. all objects after header: bytes flushed to sink, then bytes not flushed yet
+    private FileChannel sink;
+    private File scratchFile;
+    private long flushedLength = 0;
+    private PDFOutputBuffer body = new PDFOutputBuffer(INITIAL_BODY_CAPACITY);
+
+    // body offset of each object, by object number
+    private long[] objectOffsets = new long[64];
+    private int nextObjectNumber = PAGES_OBJECT + 1;
+
+    private int[] pageObjects = new int[16];
+    private int pageCount = 0;
+
+    // objects and pages persisted by checkpoints so far, and keys of resources added since last checkpoint
+    private int checkpointObjects = PAGES_OBJECT + 1;
+    private int checkpointPages = 0;
+    private final List<String> uncheckpointedFonts = new ArrayList<String>();
+    private final List<String> uncheckpointedImages = new ArrayList<String>();
+
+    // resource name and object number of fonts and images used in document
+    private final Map<String, Resource> fonts = new HashMap<String, Resource>();
+    private final Map<String, Resource> images = new HashMap<String, Resource>();
+
+    // current page
+    private PDFOutputBuffer content = new PDFOutputBuffer(INITIAL_CONTENT_CAPACITY);
+    private boolean pageOpen = false;
+    private float pageWidth;
+    private float pageHeight;
+    private int pageRotation;
+    private final Set<Resource> pageFonts = new LinkedHashSet<Resource>();
+    private final Set<Resource> pageImages = new LinkedHashSet<Resource>();
+
+    private Deflater deflater;
+    private byte[] deflateBuffer;
+    private boolean saved = false;
+    private boolean closed = false;
+
+    /**
+     * Create a backend compressing page content streams, spilling body to a scratch file in java.io.tmpdir
+     */
+    public DirectPDFRenderBackend() {
+        this(true);
+    }
+
+    /**
+     * @param compress Whether to Flate compress page content streams
+     */
+    public DirectPDFRenderBackend(boolean compress) {
+        this(null, compress);
+    }
+
+    /**
+     * @param scratchDirectory Directory to create the scratch file in, null for java.io.tmpdir. The file is deleted
+     *                         when backend is closed
+     * @param compress Whether to Flate compress page content streams
+     */
+    public DirectPDFRenderBackend(File scratchDirectory, boolean compress) {
+        this(scratchDirectory, compress, DEFAULT_SPILL_THRESHOLD);
+    }
+
+    /**
+     * @param scratchDirectory Directory to create the scratch file in, null for java.io.tmpdir
+     * @param compress Whether to Flate compress page content streams
+     * @param spillThreshold Body size from which body is flushed to scratch file
+     */
+    DirectPDFRenderBackend(File scratchDirectory, boolean compress, int spillThreshold) {
+        this.scratchDirectory = scratchDirectory;
+        this.compress = compress;
+        this.spillThreshold = spillThreshold;
+    }
+
+    public void beginPage(float width, float height, int rotation) throws IOException {
+        checkNotSaved();
+        finishPage();
+
+        pageOpen = true;
+        pageWidth = width;
+        pageHeight = height;
+        pageRotation = rotation;
+
+        if (rotation == 90) {
+            content.append("0 1 -1 0 ").append(width).append(" 0 cm\n");
+        }
+    }
+
+    public void fillRect(float x, float y, float width, float height, Color color) throws IOException {
+        checkNotSaved();
+        appendColor(color);
+        content.append(x).append(' ').append(y).append(' ').append(width).append(' ').append(height).append(" re\nf\n");
+    }
+
+    public void beginText(float x, float y, Color color) throws IOException {
+        checkNotSaved();
+        content.append("BT\n").append(x).append(' ').append(y).append(" Td\n");
+        appendColor(color);
+    }
+
+    public void showText(PreparedFont font, int fontSize, String text) throws IOException {
+        checkNotSaved();
+        Resource resource = getFontResource(font);
+        pageFonts.add(resource);
+
+        content.append('/').append(resource.name).append(' ').append(fontSize).append(" Tf\n")
+                .appendLiteralString(text).append(" Tj\n");
+    }
+
+    public void endText() throws IOException {
+        checkNotSaved();
+        content.append("ET\n");
+    }
+
+    public void drawImage(PreparedImage image, float x, float y, float width, float height) throws IOException {
+        checkNotSaved();
+        Resource resource = images.get(image.getKey());
+
+        if (resource == null) {
+            resource = new Resource("Im" + images.size(), writeImage(image));
+            images.put(image.getKey(), resource);
+            uncheckpointedImages.add(image.getKey());
+            spill();
+        }
+        pageImages.add(resource);
+
+        content.append("q\n").append(width).append(" 0 0 ").append(height).append(' ')
+                .append(x).append(' ').append(y).append(" cm\n/").append(resource.name).append(" Do\nQ\n");
+    }
+
+    private void appendColor(Color color) {
+        content.append(color.getRed() / 255f).append(' ')
+                .append(color.getGreen() / 255f).append(' ')
+                .append(color.getBlue() / 255f).append(" rg\n");
+    }
+
+    private Resource getFontResource(PreparedFont font) throws IOException {
+        Resource resource = fonts.get(font.getBaseFont());
+
+        if (resource == null) {
+            resource = new Resource("F" + fonts.size(), writeFont(font));
+            fonts.put(font.getBaseFont(), resource);
+            uncheckpointedFonts.add(font.getBaseFont());
+            spill();
+        }
+
+        return resource;
+    }
+
+    /**
+     * Write a Standard 14 font dictionary, with WinAnsiEncoding unless font is drawn in its built-in encoding
+     */
+    private int writeFont(PreparedFont font) throws IOException {
+        if (!font.isStandard14()) {
+            throw new IOException("Only Standard 14 fonts are supported by direct PDF backend: " + font.getBaseFont());
+        }
+
+        int objectNumber = beginObject();
+        body.append("<< /Type /Font /Subtype /Type1 /BaseFont /").append(font.getBaseFont());
+        if (!font.hasBuiltInEncoding()) {
+            body.append(" /Encoding /WinAnsiEncoding");
+        }
+        body.append(" >>\n");
+        endObject();
+
+        return objectNumber;
+    }
+
+    private int writeImage(PreparedImage image) {
+        int maskObject = -1;
+
+        if (image.getAlphaData() != null) {
+            maskObject = beginObject();
+            appendImageDictionary(image, "DeviceGray", PreparedImage.FILTER_FLATE, image.getAlphaData().length);
+            body.append(" >>\n");
+            appendStreamData(image.getAlphaData(), image.getAlphaData().length);
+            endObject();
+        }
+
+        int objectNumber = beginObject();
+        appendImageDictionary(image, image.getColorSpace(), image.getFilter(), image.getData().length);
+
+        if (image.isInvertedCMYK()) {
+            body.append(" /Decode [1 0 1 0 1 0 1 0]");
+        }
+        if (maskObject != -1) {
+            body.append(" /SMask ").append(maskObject).append(" 0 R");
+        }
+
+        body.append(" >>\n");
+        appendStreamData(image.getData(), image.getData().length);
+        endObject();
+
+        return objectNumber;
+    }
+
+    private void appendImageDictionary(PreparedImage image, String colorSpace, String filter, int length) {
+        body.append("<< /Type /XObject /Subtype /Image /Width ").append(image.getWidth())
+                .append(" /Height ").append(image.getHeight())
+                .append(" /BitsPerComponent ").append(image.getBitsPerComponent())
+                .append(" /ColorSpace /").append(colorSpace)
+                .append(" /Filter /").append(filter)
+                .append(" /Length ").append(length);
+    }
+
+    private void appendStreamData(byte[] data, int length) {
+        body.append("stream\n").append(data, 0, length).append("\nendstream\n");
+    }
+
+    /**
+     * Write content stream and page object of current page, if any
+     */
+    void finishPage() throws IOException {
+        if (!pageOpen) {
+            return;
+        }
+
+        int contentObject = beginObject();
+        if (compress) {
+            int length = deflate(content);
+            body.append("<< /Length ").append(length).append(" /Filter /FlateDecode >>\n");
+            appendStreamData(deflateBuffer, length);
+        }
+        else {
+            body.append("<< /Length ").append(content.size()).append(" >>\n");
+            appendStreamData(content.array(), content.size());
+        }
+        endObject();
+
+        int pageObject = beginObject();
+        body.append("<< /Type /Page /Parent ").append(PAGES_OBJECT).append(" 0 R /MediaBox [")
+                .append(0f).append(' ').append(0f).append(' ')
+                .append(pageWidth).append(' ').append(pageHeight).append(']');
+        if (pageRotation != 0) {
+            body.append(" /Rotate ").append(pageRotation);
+        }
+
+        body.append(" /Resources <<");
+        appendResources("Font", pageFonts);
+        appendResources("XObject", pageImages);
+        body.append(" >> /Contents ").append(contentObject).append(" 0 R >>\n");
+        endObject();
+
+        if (pageCount == pageObjects.length) {
+            pageObjects = Arrays.copyOf(pageObjects, pageCount * 2);
+        }
+        pageObjects[pageCount++] = pageObject;
+
+        content.reset();
+        pageFonts.clear();
+        pageImages.clear();
+        pageOpen = false;
+
+        spill();
+    }
+
+    /**
+     * Flush finished objects to sink once enough bytes are buffered, creating scratch file sink on first spill
+     */
+    private void spill() throws IOException {
+        if (body.size() < (sink != null ? FLUSH_SIZE : spillThreshold)) {
+            return;
+        }
+
+        if (sink == null) {
+            scratchFile = File.createTempFile("pdfboxprintln", ".body", scratchDirectory);
+            sink = new RandomAccessFile(scratchFile, "rw").getChannel();
+        }
+
+        flushBody();
+    }
+
+    /**
+     * Flush all buffered body bytes to sink
+     * @throws IOException
+     */
+    void flushBody() throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(body.array(), 0, body.size());
+
+        while (buffer.hasRemaining()) {
+            sink.write(buffer, flushedLength + buffer.position());
+        }
+
+        flushedLength += body.size();
+        body.reset();
+    }
+
+    /**
+     * Continue body in given file, e.g. the body file of a checkpoint store, copying the part written so far into it.
+     * File is not closed by backend
+     * @param channel Empty file
+     * @throws IOException
+     */
+    void transferBodyTo(FileChannel channel) throws IOException {
+        if (channel == sink) {
+            return;
+        }
+
+        checkNotSaved();
+        channel.truncate(0);
+
+        for (long position = 0; position < flushedLength; ) {
+            position += sink.transferTo(position, flushedLength - position, channel);
+        }
+
+        releaseScratchFile();
+        sink = channel;
+        flushBody();
+    }
+
+    private void releaseScratchFile() throws IOException {
+        if (scratchFile != null) {
+            sink.close();
+            sink = null;
+
+            if (!scratchFile.delete()) {
+                throw new IOException("Unable to delete scratch file " + scratchFile);
+            }
+            scratchFile = null;
+        }
+    }
+
+    private void appendResources(String category, Set<Resource> resources) {
+        if (resources.isEmpty()) {
+            return;
+        }
+
+        body.append(" /").append(category).append(" <<");
+        for (Resource resource : resources) {
+            body.append(" /").append(resource.name).append(' ').append(resource.objectNumber).append(" 0 R");
+        }
+        body.append(" >>");
+    }
+
+    /**
+     * Compress buffer into deflate buffer
+     * @return Compressed length
+     */
+    private int deflate(PDFOutputBuffer buffer) {
+        if (deflater == null) {
+            deflater = new Deflater();
+            deflateBuffer = new byte[INITIAL_CONTENT_CAPACITY];
+        }
+
+        deflater.reset();
+        deflater.setInput(buffer.array(), 0, buffer.size());
+        deflater.finish();
+
+        int length = 0;
+        while (!deflater.finished()) {
+            if (length == deflateBuffer.length) {
+                deflateBuffer = Arrays.copyOf(deflateBuffer, deflateBuffer.length * 2);
+            }
+            length += deflater.deflate(deflateBuffer, length, deflateBuffer.length - length);
+        }
+
+        return length;
+    }
+
+    private int beginObject() {
+        return beginObject(nextObjectNumber++);
+    }
+
+    private int beginObject(int objectNumber) {
+        if (objectNumber >= objectOffsets.length) {
+            objectOffsets = Arrays.copyOf(objectOffsets, Math.max(objectOffsets.length * 2, objectNumber + 1));
+        }
+
+        objectOffsets[objectNumber] = getBodySize();
+        body.append(objectNumber).append(" 0 obj\n");
+
+        return objectNumber;
+    }
+
+    private void endObject() {
+        body.append("endobj\n");
+    }
+
+    private void checkNotSaved() throws IOException {
+        if (saved) {
+            throw new IOException("Document is already saved");
+        }
+    }
+
+    /**
+     * Bytes of document written so far, excluding current page and trailing page tree and cross reference table
+     * @return
+     */
+    public long getBodySize() {
+        return HEADER.length + flushedLength + body.size();
+    }
+
+    public long getOutputSize() {
+        return closed ? 0 : getBodySize();
+    }
+
+    public int getPageCount() {
+        return pageCount + (pageOpen ? 1 : 0);
+    }
+
+    /**
+     * Write what was added to tables describing body since last checkpoint, at a page boundary
+     * (after {@link #finishPage()}). Delta counts as persisted after {@link #checkpointWritten()}
+     * @param out
+     * @throws IOException
+     */
+    void writeCheckpointState(DataOutput out) throws IOException {
+        if (pageOpen) {
+            throw new IOException("Checkpoint is only possible between pages");
+        }
+
+        out.writeBoolean(compress);
+        out.writeLong(getBodySize());
+
+        out.writeInt(checkpointObjects);
+        out.writeInt(nextObjectNumber - checkpointObjects);
+        for (int i = checkpointObjects; i < nextObjectNumber; ++i) {
+            out.writeLong(objectOffsets[i]);
+        }
+
+        out.writeInt(checkpointPages);
+        out.writeInt(pageCount - checkpointPages);
+        for (int i = checkpointPages; i < pageCount; ++i) {
+            out.writeInt(pageObjects[i]);
+        }
+
+        writeResources(out, fonts, uncheckpointedFonts);
+        writeResources(out, images, uncheckpointedImages);
+    }
+
+    private static void writeResources(DataOutput out, Map<String, Resource> resources, List<String> keys)
+            throws IOException {
+        out.writeInt(keys.size());
+        for (String key : keys) {
+            Resource resource = resources.get(key);
+            out.writeUTF(key);
+            out.writeUTF(resource.name);
+            out.writeInt(resource.objectNumber);
+        }
+    }
+
+    /**
+     * Mark state written by last {@link #writeCheckpointState(DataOutput)} as persisted
+     */
+    void checkpointWritten() {
+        checkpointObjects = nextObjectNumber;
+        checkpointPages = pageCount;
+        uncheckpointedFonts.clear();
+        uncheckpointedImages.clear();
+    }
+
+    /**
+     * Apply tables written by {@link #writeCheckpointState(DataOutput)} to a new backend, once per checkpoint in
+     * order they were written. Then continue persisted body with {@link #resumeBody(FileChannel)}
+     * @param in Checkpoint state
+     * @throws IOException
+     */
+    void readCheckpointState(DataInput in) throws IOException {
+        if (sink != null || pageOpen || body.size() > 0) {
+            throw new IOException("Only a new backend can be restored from checkpoint");
+        }
+        if (in.readBoolean() != compress) {
+            throw new IOException("Checkpoint was written with compress=" + !compress);
+        }
+
+        flushedLength = in.readLong() - HEADER.length;
+
+        if (in.readInt() != nextObjectNumber) {
+            throw new IOException("Checkpoint object table is out of sequence");
+        }
+        for (int count = in.readInt(); count > 0; --count) {
+            if (nextObjectNumber == objectOffsets.length) {
+                objectOffsets = Arrays.copyOf(objectOffsets, nextObjectNumber * 2);
+            }
+            objectOffsets[nextObjectNumber++] = in.readLong();
+        }
+
+        if (in.readInt() != pageCount) {
+            throw new IOException("Checkpoint page table is out of sequence");
+        }
+        for (int count = in.readInt(); count > 0; --count) {
+            if (pageCount == pageObjects.length) {
+                pageObjects = Arrays.copyOf(pageObjects, pageCount * 2);
+            }
+            pageObjects[pageCount++] = in.readInt();
+        }
+
+        readResources(in, fonts);
+        readResources(in, images);
+
+        checkpointObjects = nextObjectNumber;
+        checkpointPages = pageCount;
+    }
+
+    private static void readResources(DataInput in, Map<String, Resource> resources) throws IOException {
+        for (int count = in.readInt(); count > 0; --count) {
+            String key = in.readUTF();
+            resources.put(key, new Resource(in.readUTF(), in.readInt()));
+        }
+    }
+
+    /**
+     * Continue persisted body of restored checkpoints as if backend had written it itself. Body stays on disk,
+     * bytes appended after last checkpoint are cut off
+     * @param bodyChannel Persisted body, not closed by backend
+     * @throws IOException
+     */
+    void resumeBody(FileChannel bodyChannel) throws IOException {
+        if (bodyChannel.size() < flushedLength) {
+            throw new IOException("Checkpoint body is shorter than checkpoint: "
+                    + bodyChannel.size() + " < " + flushedLength);
+        }
+
+        bodyChannel.truncate(flushedLength);
+        sink = bodyChannel;
+    }
+
+    public void save(OutputStream outputStream) throws IOException {
+        checkNotSaved();
+        finishPage();
+        saved = true;
+
+        // Body written so far, document structure follows straight into output
+        outputStream.write(HEADER);
+        if (sink != null) {
+            WritableByteChannel out = Channels.newChannel(outputStream);
+            for (long position = 0; position < flushedLength; ) {
+                position += sink.transferTo(position, flushedLength - position, out);
+            }
+        }
+        flushBody(outputStream);
+
+        beginObject(PAGES_OBJECT);
+        body.append("<< /Type /Pages /Kids [");
+        for (int i = 0; i < pageCount; ++i) {
+            body.append(i > 0 ? " " : "").append(pageObjects[i]).append(" 0 R");
+        }
+        body.append("] /Count ").append(pageCount).append(" >>\n");
+        endObject();
+
+        beginObject(CATALOG_OBJECT);
+        body.append("<< /Type /Catalog /Pages ").append(PAGES_OBJECT).append(" 0 R >>\n");
+        endObject();
+
+        long xrefOffset = getBodySize();
+        body.append("xref\n0 ").append(nextObjectNumber).append("\n0000000000 65535 f \n");
+        for (int i = 1; i < nextObjectNumber; ++i) {
+            String offset = Long.toString(objectOffsets[i]);
+            for (int pad = offset.length(); pad < 10; ++pad) {
+                body.append('0');
+            }
+            body.append(offset).append(" 00000 n \n");
+
+            if (body.size() >= FLUSH_SIZE) {
+                flushBody(outputStream);
+            }
+        }
+        body.append("trailer\n<< /Size ").append(nextObjectNumber).append(" /Root ").append(CATALOG_OBJECT)
+                .append(" 0 R >>\nstartxref\n").append(xrefOffset).append("\n%%EOF\n");
+
+        flushBody(outputStream);
+        outputStream.flush();
+    }
+
+    /**
+     * Flush buffered body bytes to output instead of sink, when saving
+     */
+    private void flushBody(OutputStream outputStream) throws IOException {
+        body.writeTo(outputStream);
+        flushedLength += body.size();
+        body.reset();
+    }
+
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        if (deflater != null) {
+            deflater.end();
+            deflater = null;
+        }
+
+        body = null;
+        content = null;
+
+        // A checkpoint body file belongs to its store
+        releaseScratchFile();
+        sink = null;
+    }
+
+    private static class Resource {
+        final String name;
+        final int objectNumber;
+
+        Resource(String name, int objectNumber) {
+            this.name = name;
+            this.objectNumber = objectNumber;
+        }
+    }
+}
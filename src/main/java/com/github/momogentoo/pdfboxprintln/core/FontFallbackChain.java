@@ -0,0 +1,254 @@
+package com.github.momogentoo.pdfboxprintln.core;
+
+import org.apache.log4j.Logger;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * FontFallbackChain
+ * <p>
+ * An ordered list of fonts, each character of a text is drawn by the first font in the chain having a glyph for it.
+ * <p>
+ * Coverage of the fonts is compiled once, when chain is created, into a two-level codepoint lookup table
+ * (high byte selects a 256-entry block, low byte the entry). Each entry holds the index of the font and
+ * the single-byte code of the character in that font's encoding, so splitting text into same-font runs
+ * and measuring it are table lookups only. Instances are immutable and can be shared among builders and threads.
+ */
+public class FontFallbackChain {
+    private static final Logger LOGGER = Logger.getLogger(FontFallbackChain.class);
+
+    private static final int BLOCK_SIZE = 256;
+    private static final int MAX_FONTS = 127;
+    private static final char REPLACEMENT_CHARACTER = '?';
+
+    private final PreparedFont[] fonts;
+
+    // [codepoint >> 8][codepoint & 0xff] -> ((font index + 1) << 8) | code, 0 for unmapped
+    private final short[][] blocks = new short[BLOCK_SIZE][];
+
+    // [font index][code] -> glyph width in 1/1000 text space units
+    private final float[][] widths;
+
+    // Entry used for characters not covered by any font, 0 to drop them
+    private final short replacement;
+
+    /**
+     * Create a fallback chain of PDFBox fonts. PDFBox 1.8 draws non-symbolic fonts in WinAnsiEncoding, so only
+     * symbolic fonts like Symbol and ZapfDingbats add characters beyond it
+     *
+     * @param fonts Fonts in order of preference, first one is the primary font
+     */
+    public FontFallbackChain(PDFont... fonts) {
+        this(prepare(fonts));
+    }
+
+    /**
+     * Create a fallback chain and compile its codepoint table
+     *
+     * @param fonts Fonts in order of preference, first one is the primary font
+     */
+    public FontFallbackChain(PreparedFont... fonts) {
+        if (fonts.length == 0 || fonts.length > MAX_FONTS) {
+            throw new IllegalArgumentException("Font fallback chain needs 1 to " + MAX_FONTS + " fonts");
+        }
+
+        this.fonts = fonts.clone();
+        this.widths = new float[fonts.length][BLOCK_SIZE];
+
+        // Fill table from last font to first, so preferred fonts overwrite fallback entries
+        for (int fontIndex = fonts.length - 1; fontIndex >= 0; --fontIndex) {
+            compileFont(fontIndex);
+        }
+
+        replacement = lookup(REPLACEMENT_CHARACTER);
+    }
+
+    private static PreparedFont[] prepare(PDFont[] fonts) {
+        PreparedFont[] prepared = new PreparedFont[fonts.length];
+        for (int i = 0; i < fonts.length; ++i) {
+            prepared[i] = PreparedFont.of(fonts[i]);
+        }
+        return prepared;
+    }
+
+    private void compileFont(int fontIndex) {
+        PreparedFont font = fonts[fontIndex];
+        int mapped = 0;
+
+        for (int code = 0; code < BLOCK_SIZE; ++code) {
+            char c = font.getCharacter(code);
+
+            if (c == 0) {
+                continue;
+            }
+
+            widths[fontIndex][code] = font.getWidth(code);
+
+            short[] block = blocks[c >> 8];
+            if (block == null) {
+                block = blocks[c >> 8] = new short[BLOCK_SIZE];
+            }
+
+            // Several codes may map to the same character (e.g. space and no-break space), keep the lowest
+            short existing = block[c & 0xff];
+            if (existing != 0 && (existing >> 8) == fontIndex + 1 && (existing & 0xff) < code) {
+                continue;
+            }
+
+            block[c & 0xff] = (short) (((fontIndex + 1) << 8) | code);
+            mapped++;
+        }
+
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Font " + font.getBaseFont() + " covers " + mapped + " characters");
+        }
+    }
+
+    private short lookup(char c) {
+        short[] block = blocks[c >> 8];
+        return block == null ? 0 : block[c & 0xff];
+    }
+
+    /**
+     * Table entry of character at given position, falling back to replacement entry
+     */
+    private short entryAt(String text, int index) {
+        short entry = lookup(text.charAt(index));
+        return entry != 0 ? entry : replacement;
+    }
+
+    /**
+     * Primary font, i.e. the first font of the chain
+     * @return
+     */
+    public PreparedFont getPrimaryFont() {
+        return fonts[0];
+    }
+
+    public int getFontCount() {
+        return fonts.length;
+    }
+
+    public PreparedFont getFont(int index) {
+        return fonts[index];
+    }
+
+    /**
+     * Whether given character is drawn by some font of the chain instead of replacement character
+     * @param c
+     * @return
+     */
+    public boolean canDisplay(char c) {
+        return lookup(c) != 0;
+    }
+
+    /**
+     * Get text width according to font size, measuring each character in the font which would draw it
+     *
+     * @param text Text string
+     * @param fontSize Font size
+     * @return Text width
+     */
+    public float getStringWidth(String text, int fontSize) {
+        return getStringWidth(text, 0, text.length(), fontSize);
+    }
+
+    /**
+     * Get width of text.substring(start, end) according to font size
+     *
+     * @param text Text string
+     * @param start Start index, inclusive
+     * @param end End index, exclusive
+     * @param fontSize Font size
+     * @return Text width
+     */
+    public float getStringWidth(String text, int start, int end, int fontSize) {
+        float width = 0;
+
+        for (int i = start; i < end; ++i) {
+            short entry = entryAt(text, i);
+
+            if (entry != 0) {
+                width += widths[(entry >> 8) - 1][entry & 0xff];
+            }
+
+            // A surrogate pair is a single unmapped character
+            if (Character.isHighSurrogate(text.charAt(i)) && i + 1 < end && Character.isLowSurrogate(text.charAt(i + 1))) {
+                ++i;
+            }
+        }
+
+        return width * fontSize / 1000;
+    }
+
+    /**
+     * Split text into runs of characters drawn by the same font, in a single pass
+     *
+     * @param text Text string
+     * @return Runs in text order, each holding its text already encoded into font codes
+     */
+    public List<FontRun> split(String text) {
+        List<FontRun> runs = new ArrayList<FontRun>(2);
+        StringBuilder encoded = new StringBuilder(text.length());
+        int runFont = -1;
+
+        for (int i = 0; i < text.length(); ++i) {
+            short entry = entryAt(text, i);
+
+            if (Character.isHighSurrogate(text.charAt(i)) && i + 1 < text.length() && Character.isLowSurrogate(text.charAt(i + 1))) {
+                ++i;
+            }
+
+            if (entry == 0) {
+                continue;
+            }
+
+            int fontIndex = (entry >> 8) - 1;
+            if (fontIndex != runFont) {
+                if (encoded.length() > 0) {
+                    runs.add(new FontRun(runFont, encoded.toString()));
+                    encoded.setLength(0);
+                }
+                runFont = fontIndex;
+            }
+            encoded.append((char) (entry & 0xff));
+        }
+
+        if (encoded.length() > 0) {
+            runs.add(new FontRun(runFont, encoded.toString()));
+        }
+
+        return runs;
+    }
+
+    /**
+     * FontRun
+     * <p>
+     * Consecutive characters of a text drawn by the same font of a chain
+     */
+    public static class FontRun {
+        private final int fontIndex;
+        private final String encodedText;
+
+        FontRun(int fontIndex, String encodedText) {
+            this.fontIndex = fontIndex;
+            this.encodedText = encodedText;
+        }
+
+        /**
+         * @return Index of font in chain
+         */
+        public int getFontIndex() {
+            return fontIndex;
+        }
+
+        /**
+         * @return Text as single-byte font codes (chars 0-255), to be passed to content stream as is
+         */
+        public String getEncodedText() {
+            return encodedText;
+        }
+    }
+}
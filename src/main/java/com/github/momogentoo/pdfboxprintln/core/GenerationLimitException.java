@@ -0,0 +1,33 @@
+package com.github.momogentoo.pdfboxprintln.core;
+
+import java.io.IOException;
+
+/**
+ * GenerationLimitException
+ * <p>
+ * Thrown by PDFBuilder when a generation hits one of its limits. The builder is closed before this is thrown,
+ * no further output is possible
+ */
+public class GenerationLimitException extends IOException {
+
+    public enum Limit {
+        DEADLINE,
+        MAX_PAGES,
+        MAX_OUTPUT_BYTES,
+        CANCELLED
+    }
+
+    private final Limit limit;
+
+    public GenerationLimitException(Limit limit, String message) {
+        super(message);
+        this.limit = limit;
+    }
+
+    /**
+     * @return Limit hit
+     */
+    public Limit getLimit() {
+        return limit;
+    }
+}
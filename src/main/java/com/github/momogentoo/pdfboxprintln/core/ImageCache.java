@@ -0,0 +1,287 @@
+package com.github.momogentoo.pdfboxprintln.core;
+
+import org.apache.log4j.Logger;
+
+import javax.imageio.ImageIO;
+import java.awt.color.ColorSpace;
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.Raster;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.Deflater;
+
+/**
+ * ImageCache
+ * <p>
+ * Cache of {@link PreparedImage}s keyed by content hash of source image bytes, so an image used by
+ * many documents (e.g. a logo) is decoded and compressed only once per process.
+ * <p>
+ * JPEG images are never decoded: only their header is parsed and original bytes are embedded as DCTDecode stream.
+ * Least recently used images are evicted once total size exceeds capacity. Instances are thread-safe.
+ */
+public class ImageCache {
+    private static final Logger LOGGER = Logger.getLogger(ImageCache.class);
+    private static final long DEFAULT_CAPACITY = 64L * 1024 * 1024;
+    private static final ImageCache DEFAULT_INSTANCE = new ImageCache(DEFAULT_CAPACITY);
+
+    private final long capacity;
+    private final LinkedHashMap<String, PreparedImage> images = new LinkedHashMap<String, PreparedImage>(16, 0.75f, true);
+    private long size = 0;
+
+    /**
+     * @param capacity Max total size in bytes of cached images
+     */
+    public ImageCache(long capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * Process-wide cache, used by PDFBuilder unless another one is set
+     * @return
+     */
+    public static ImageCache getDefault() {
+        return DEFAULT_INSTANCE;
+    }
+
+    /**
+     * Get prepared image of given image file content, preparing and caching it if necessary
+     *
+     * @param imageData Content of a JPEG, PNG, GIF or BMP file
+     * @return Prepared image
+     * @throws IOException if image can't be read
+     */
+    public PreparedImage prepare(byte[] imageData) throws IOException {
+        String key = hash(imageData);
+
+        synchronized (this) {
+            PreparedImage image = images.get(key);
+            if (image != null) {
+                return image;
+            }
+        }
+
+        // Prepare outside of lock, a concurrent miss on same image only costs duplicated work
+        PreparedImage image = isJpeg(imageData) ? prepareJpeg(key, imageData) : prepareDecoded(key, imageData);
+
+        synchronized (this) {
+            PreparedImage existing = images.get(key);
+            if (existing != null) {
+                return existing;
+            }
+
+            if (image.getSize() <= capacity) {
+                images.put(key, image);
+                size += image.getSize();
+                evict();
+            }
+        }
+
+        return image;
+    }
+
+    public synchronized void clear() {
+        images.clear();
+        size = 0;
+    }
+
+    public synchronized int getImageCount() {
+        return images.size();
+    }
+
+    private void evict() {
+        Iterator<Map.Entry<String, PreparedImage>> iterator = images.entrySet().iterator();
+
+        while (size > capacity && iterator.hasNext()) {
+            size -= iterator.next().getValue().getSize();
+            iterator.remove();
+        }
+    }
+
+    private static String hash(byte[] data) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(data);
+            StringBuilder key = new StringBuilder(digest.length * 2);
+
+            for (byte b : digest) {
+                key.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+            }
+
+            return key.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static boolean isJpeg(byte[] data) {
+        return data.length > 3 && (data[0] & 0xff) == 0xff && (data[1] & 0xff) == 0xd8;
+    }
+
+    /**
+     * Read JPEG dimensions and color components from its frame header, without decoding image
+     */
+    private static PreparedImage prepareJpeg(String key, byte[] data) throws IOException {
+        boolean adobe = false;
+        int pos = 2;
+
+        while (pos + 4 <= data.length) {
+            if ((data[pos] & 0xff) != 0xff) {
+                throw new IOException("Malformed JPEG marker at offset " + pos);
+            }
+
+            int marker = data[pos + 1] & 0xff;
+
+            // Fill bytes and standalone markers carry no length
+            if (marker == 0xff) {
+                pos++;
+                continue;
+            }
+            if (marker == 0x01 || (marker >= 0xd0 && marker <= 0xd7)) {
+                pos += 2;
+                continue;
+            }
+
+            int length = ((data[pos + 2] & 0xff) << 8) | (data[pos + 3] & 0xff);
+
+            if (marker == 0xee && length >= 7 && pos + 9 <= data.length
+                    && new String(data, pos + 4, 5, "ISO-8859-1").equals("Adobe")) {
+                adobe = true;
+            }
+
+            // Start of frame, except DHT (C4), JPG (C8) and DAC (CC)
+            if (marker >= 0xc0 && marker <= 0xcf && marker != 0xc4 && marker != 0xc8 && marker != 0xcc) {
+                if (pos + 10 > data.length) {
+                    break;
+                }
+
+                int precision = data[pos + 4] & 0xff;
+                int height = ((data[pos + 5] & 0xff) << 8) | (data[pos + 6] & 0xff);
+                int width = ((data[pos + 7] & 0xff) << 8) | (data[pos + 8] & 0xff);
+                int components = data[pos + 9] & 0xff;
+
+                String colorSpace;
+                switch (components) {
+                    case 1:
+                        colorSpace = "DeviceGray";
+                        break;
+                    case 3:
+                        colorSpace = "DeviceRGB";
+                        break;
+                    case 4:
+                        colorSpace = "DeviceCMYK";
+                        break;
+                    default:
+                        throw new IOException("Unsupported number of JPEG color components: " + components);
+                }
+
+                return new PreparedImage(key, PreparedImage.FILTER_DCT, width, height, precision, colorSpace,
+                        adobe && components == 4, data, null);
+            }
+
+            pos += 2 + length;
+        }
+
+        throw new IOException("No frame header found in JPEG");
+    }
+
+    /**
+     * Decode image and store its samples Flate compressed, alpha channel separately
+     */
+    private static PreparedImage prepareDecoded(String key, byte[] data) throws IOException {
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(data));
+
+        if (image == null) {
+            throw new IOException("Unsupported image format");
+        }
+
+        int width = image.getWidth();
+        int height = image.getHeight();
+        ColorModel colorModel = image.getColorModel();
+        boolean gray = colorModel.getColorSpace().getType() == ColorSpace.TYPE_GRAY;
+        boolean hasAlpha = colorModel.hasAlpha();
+
+        byte[] samples = new byte[width * height * (gray ? 1 : 3)];
+        byte[] alpha = hasAlpha ? new byte[width * height] : null;
+        boolean translucent = false;
+        int[] row = new int[width];
+        int s = 0;
+        int a = 0;
+
+        if (gray) {
+            // getRGB would convert linear gray to sRGB and lighten the image, take raster samples as they are
+            Raster raster = image.getRaster();
+            int bits = colorModel.getComponentSize(0);
+
+            for (int y = 0; y < height; ++y) {
+                raster.getSamples(0, y, width, 1, 0, row);
+                for (int sample : row) {
+                    samples[s++] = (byte) scaleTo8Bits(sample, bits);
+                }
+
+                if (alpha != null) {
+                    raster.getSamples(0, y, width, 1, raster.getNumBands() - 1, row);
+                    for (int sample : row) {
+                        alpha[a] = (byte) scaleTo8Bits(sample, colorModel.getComponentSize(raster.getNumBands() - 1));
+                        translucent |= alpha[a] != (byte) 0xff;
+                        a++;
+                    }
+                }
+            }
+        }
+        else {
+            for (int y = 0; y < height; ++y) {
+                image.getRGB(0, y, width, 1, row, 0, width);
+
+                for (int argb : row) {
+                    samples[s++] = (byte) (argb >> 16);
+                    samples[s++] = (byte) (argb >> 8);
+                    samples[s++] = (byte) argb;
+
+                    if (alpha != null) {
+                        alpha[a] = (byte) (argb >>> 24);
+                        translucent |= alpha[a] != (byte) 0xff;
+                        a++;
+                    }
+                }
+            }
+        }
+
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Decoded image " + key + " " + width + "x" + height + (translucent ? " with alpha" : ""));
+        }
+
+        return new PreparedImage(key, PreparedImage.FILTER_FLATE, width, height, 8, gray ? "DeviceGray" : "DeviceRGB",
+                false, deflate(samples), translucent ? deflate(alpha) : null);
+    }
+
+    private static int scaleTo8Bits(int sample, int bits) {
+        if (bits > 8) {
+            return sample >> (bits - 8);
+        }
+        if (bits < 8) {
+            return sample * 255 / ((1 << bits) - 1);
+        }
+        return sample;
+    }
+
+    private static byte[] deflate(byte[] data) {
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 4 + 64);
+        byte[] buffer = new byte[8192];
+
+        deflater.setInput(data);
+        deflater.finish();
+        while (!deflater.finished()) {
+            out.write(buffer, 0, deflater.deflate(buffer));
+        }
+        deflater.end();
+
+        return out.toByteArray();
+    }
+}
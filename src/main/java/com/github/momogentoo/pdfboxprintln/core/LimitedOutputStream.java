@@ -0,0 +1,46 @@
+package com.github.momogentoo.pdfboxprintln.core;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * LimitedOutputStream
+ * <p>
+ * Output stream failing with {@link GenerationLimitException} before more than a maximum number of bytes is written
+ */
+class LimitedOutputStream extends FilterOutputStream {
+    private final long maxBytes;
+    private long count = 0;
+
+    LimitedOutputStream(OutputStream out, long maxBytes) {
+        super(out);
+        this.maxBytes = maxBytes;
+    }
+
+    private void reserve(long length) throws IOException {
+        if (count + length > maxBytes) {
+            throw new GenerationLimitException(GenerationLimitException.Limit.MAX_OUTPUT_BYTES,
+                    "Output exceeds " + maxBytes + " bytes");
+        }
+        count += length;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        reserve(1);
+        out.write(b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        reserve(len);
+        out.write(b, off, len);
+    }
+
+    // Leave underlying stream open, it belongs to the caller of save
+    @Override
+    public void close() throws IOException {
+        flush();
+    }
+}
@@ -0,0 +1,42 @@
+package com.github.momogentoo.pdfboxprintln.core;
+
+import java.awt.*;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * NullRenderBackend
+ * <p>
+ * Render backend discarding all drawing calls, for layout passes which only need PDFBuilder's line flow
+ */
+class NullRenderBackend implements RenderBackend {
+
+    public void beginPage(float width, float height, int rotation) {
+    }
+
+    public void fillRect(float x, float y, float width, float height, Color color) {
+    }
+
+    public void beginText(float x, float y, Color color) {
+    }
+
+    public void showText(PreparedFont font, int fontSize, String text) {
+    }
+
+    public void endText() {
+    }
+
+    public void drawImage(PreparedImage image, float x, float y, float width, float height) {
+    }
+
+    public long getOutputSize() {
+        return 0;
+    }
+
+    public void save(OutputStream outputStream) throws IOException {
+        throw new IOException("Layout pass has no document to save");
+    }
+
+    public void close() {
+    }
+}
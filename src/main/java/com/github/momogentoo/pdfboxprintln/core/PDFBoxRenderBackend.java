@@ -0,0 +1,213 @@
+package com.github.momogentoo.pdfboxprintln.core;
+
+import org.apache.pdfbox.cos.COSArray;
+import org.apache.pdfbox.cos.COSDictionary;
+import org.apache.pdfbox.cos.COSDocument;
+import org.apache.pdfbox.cos.COSInteger;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.cos.COSStream;
+import org.apache.pdfbox.exceptions.COSVisitorException;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.common.PDStream;
+import org.apache.pdfbox.pdmodel.edit.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.graphics.xobject.PDJpeg;
+import org.apache.pdfbox.pdmodel.graphics.xobject.PDPixelMap;
+import org.apache.pdfbox.pdmodel.graphics.xobject.PDXObjectImage;
+
+import java.awt.*;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * PDFBoxRenderBackend
+ * <p>
+ * Render backend building a PDFBox {@link PDDocument} through {@link PDPageContentStream}s
+ */
+public class PDFBoxRenderBackend implements RenderBackend {
+    private final PDDocument document;
+
+    // current content stream on working page, and the page
+    private PDPageContentStream contentStream;
+    private PDPage contentPage;
+
+    // encoded bytes of finished page contents and embedded images
+    private long outputSize = 0;
+
+    // image XObjects embedded in document, by prepared image key
+    private final Map<String, PDXObjectImage> documentImages = new HashMap<String, PDXObjectImage>();
+
+    public PDFBoxRenderBackend() {
+        document = new PDDocument();
+    }
+
+    /**
+     * Create a backend whose page content streams are buffered in a scratch file instead of heap memory
+     *
+     * @param scratchDirectory Directory to create the scratch file in, it is deleted when backend is closed
+     * @throws IOException
+     */
+    public PDFBoxRenderBackend(File scratchDirectory) throws IOException {
+        document = new PDDocument(createScratchCOSDocument(scratchDirectory));
+    }
+
+    /**
+     * Create an empty COS document (trailer, catalog and page tree) backed by a temporary scratch file
+     * @param scratchDirectory
+     * @return
+     * @throws IOException
+     */
+    private static COSDocument createScratchCOSDocument(File scratchDirectory) throws IOException {
+        COSDocument cosDocument = new COSDocument(scratchDirectory, true);
+
+        COSDictionary trailer = new COSDictionary();
+        cosDocument.setTrailer(trailer);
+
+        COSDictionary catalog = new COSDictionary();
+        trailer.setItem(COSName.ROOT, catalog);
+        catalog.setItem(COSName.TYPE, COSName.CATALOG);
+        catalog.setItem(COSName.VERSION, COSName.getPDFName("1.4"));
+
+        COSDictionary pages = new COSDictionary();
+        catalog.setItem(COSName.PAGES, pages);
+        pages.setItem(COSName.TYPE, COSName.PAGES);
+        pages.setItem(COSName.KIDS, new COSArray());
+        pages.setItem(COSName.COUNT, COSInteger.ZERO);
+
+        return cosDocument;
+    }
+
+    /**
+     * Create Page content stream according page orientation
+     * @param document
+     * @param page
+     * @return
+     * @throws IOException
+     */
+    public static PDPageContentStream createContentStream(PDDocument document, PDPage page) throws IOException {
+        PDPageContentStream content = new PDPageContentStream(document, page);
+
+        // LANDSCAPE
+        if (Integer.valueOf(90).equals(page.getRotation())) { // Rotation could be null
+            content.concatenate2CTM(0, 1, -1, 0, page.getMediaBox().getWidth(), 0);
+        }
+
+        return content;
+    }
+
+    public PDDocument getDocument() {
+        return document;
+    }
+
+    public void beginPage(float width, float height, int rotation) throws IOException {
+        PDPage page = new PDPage(new PDRectangle(width, height));
+        if (rotation != 0) {
+            page.setRotation(rotation);
+        }
+        document.addPage(page);
+
+        // Close previous content stream
+        if (contentStream != null) {
+            contentStream.close();
+            outputSize += contentPage.getContents().getStream().getFilteredLength();
+        }
+
+        contentStream = createContentStream(document, page);
+        contentPage = page;
+    }
+
+    public void fillRect(float x, float y, float width, float height, Color color) throws IOException {
+        contentStream.setNonStrokingColor(color);
+        contentStream.fillRect(x, y, width, height);
+    }
+
+    public void beginText(float x, float y, Color color) throws IOException {
+        contentStream.beginText();
+        contentStream.moveTextPositionByAmount(x, y);
+        contentStream.setNonStrokingColor(color);
+    }
+
+    public void showText(PreparedFont font, int fontSize, String text) throws IOException {
+        contentStream.setFont(font.getPDFont(), fontSize);
+        contentStream.drawString(text);
+    }
+
+    public void endText() throws IOException {
+        contentStream.endText();
+    }
+
+    public void drawImage(PreparedImage image, float x, float y, float width, float height) throws IOException {
+        PDXObjectImage xObject = documentImages.get(image.getKey());
+
+        if (xObject == null) {
+            xObject = embedImage(image);
+            documentImages.put(image.getKey(), xObject);
+            outputSize += image.getSize();
+        }
+
+        contentStream.drawXObject(xObject, x, y, width, height);
+    }
+
+    /**
+     * Create image XObject from already encoded image data, without decoding or re-encoding it
+     * @param image
+     * @return
+     * @throws IOException
+     */
+    private PDXObjectImage embedImage(PreparedImage image) throws IOException {
+        PDStream stream = createImageStream(image.getData(), image.getFilter(), image.getColorSpace(), image);
+
+        if (image.isInvertedCMYK()) {
+            COSArray decode = new COSArray();
+            for (int i = 0; i < 4; ++i) {
+                decode.add(COSInteger.ONE);
+                decode.add(COSInteger.ZERO);
+            }
+            stream.getStream().setItem(COSName.DECODE, decode);
+        }
+
+        if (image.getAlphaData() != null) {
+            PDStream mask = createImageStream(image.getAlphaData(), PreparedImage.FILTER_FLATE, "DeviceGray", image);
+            stream.getStream().setItem(COSName.SMASK, mask.getStream());
+        }
+
+        return PreparedImage.FILTER_DCT.equals(image.getFilter()) ? new PDJpeg(stream) : new PDPixelMap(stream);
+    }
+
+    private PDStream createImageStream(byte[] data, String filter, String colorSpace, PreparedImage image) throws IOException {
+        PDStream stream = new PDStream(document, new ByteArrayInputStream(data), true);
+        COSStream cosStream = stream.getStream();
+
+        cosStream.setItem(COSName.TYPE, COSName.XOBJECT);
+        cosStream.setItem(COSName.SUBTYPE, COSName.IMAGE);
+        cosStream.setInt(COSName.WIDTH, image.getWidth());
+        cosStream.setInt(COSName.HEIGHT, image.getHeight());
+        cosStream.setInt(COSName.BITS_PER_COMPONENT, image.getBitsPerComponent());
+        cosStream.setItem(COSName.COLORSPACE, COSName.getPDFName(colorSpace));
+        cosStream.setItem(COSName.FILTER, COSName.getPDFName(filter));
+
+        return stream;
+    }
+
+    public long getOutputSize() {
+        return outputSize;
+    }
+
+    public void save(OutputStream outputStream) throws IOException, COSVisitorException {
+        contentStream.close();
+        document.save(outputStream);
+    }
+
+    public void close() throws IOException {
+        if (contentStream != null) {
+            contentStream.close();
+        }
+
+        document.close();
+    }
+}
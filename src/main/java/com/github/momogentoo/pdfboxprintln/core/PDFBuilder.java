@@ -7,7 +7,6 @@ import org.apache.pdfbox.pdmodel.PDPage;
 import org.apache.pdfbox.pdmodel.common.PDRectangle;
 import org.apache.pdfbox.pdmodel.edit.PDPageContentStream;
 import org.apache.pdfbox.pdmodel.font.PDFont;
-import org.apache.pdfbox.pdmodel.font.PDType1Font;
 
 import java.awt.*;
 import java.io.*;
@@ -29,9 +28,10 @@ public class PDFBuilder implements Closeable {
 
     private static final Logger LOGGER = Logger.getLogger(PDFBuilder.class);
 
-    private PDDocument document;
+    private final RenderBackend backend;
     private PageOrientation pageOrientation = PageOrientation.PORTRAIT;
-    private PDFont defaultFont = PDType1Font.HELVETICA;
+    private PreparedFont defaultFont = PreparedFont.standard(PreparedFont.HELVETICA);
+    private FontFallbackChain fontFallbackChain;
     private int textFontSize = DEFAULT_FONT_SIZE;
     private float pageMargin = DEFAULT_PAGE_MARGIN;
     private float lineSpace = DEFAULT_LINE_SPACE;
@@ -40,7 +40,34 @@ public class PDFBuilder implements Closeable {
     private String pageNumberPattern = DEFAULT_PAGE_NUMBER_PATTERN;
     private boolean outputPageNumber = true;
     private int pageNumberFontSize = DEFAULT_PAGE_NUMBER_FONT_SIZE;
+    private ImageCache imageCache = ImageCache.getDefault();
 
+    // Generation limits, -1 for no limit
+    private long deadline = -1;
+    private int maxPages = -1;
+    private long maxOutputBytes = -1;
+    private CancellationToken cancellationToken;
+
+    // pages created by this builder, unlike pageNumber it can't be set
+    private int pagesCreated = 0;
+    private boolean closed = false;
+
+    // Checkpointing, position and fingerprint of input being printed and offset of wrapped line being printed in it
+    private CheckpointStore checkpointStore;
+    private long inputPosition = 0;
+    private long inputFingerprint = 0;
+    private int wrapOffset = 0;
+
+    // Input position and fingerprint of checkpoint resumed from, until input reaches that position again
+    private long resumeInputPosition = -1;
+    private long resumeInputFingerprint = 0;
+
+    // Offset in text of first printlnWrapped after resuming, lines before it were printed before checkpoint
+    private int resumeWrapOffset = 0;
+
+    // Last PDFBox font measured, and the font prepared from it
+    private PDFont preparedSource;
+    private PreparedFont prepared;
 
     private float fontHeight;
 
@@ -56,9 +83,6 @@ public class PDFBuilder implements Closeable {
     // current working page
     private PDPage curPage;
 
-    // current content stream on working page
-    private PDPageContentStream contentStream;
-
     // current text position
     private float cur_x = 0, cur_y = 0;
 
@@ -66,13 +90,37 @@ public class PDFBuilder implements Closeable {
     private float used_height = 0;
 
     public PDFBuilder() {
+        this(new PDFBoxRenderBackend());
+    }
+
+    /**
+     * Create a builder whose page content streams are buffered in a scratch file instead of heap memory
+     *
+     * <p>Use this for very long documents, e.g. when streaming unbounded input, to keep memory usage flat</p>
+     *
+     * @param scratchDirectory Directory to create the scratch file in, it is deleted when builder is closed
+     * @throws IOException
+     */
+    public PDFBuilder(File scratchDirectory) throws IOException {
+        this(new PDFBoxRenderBackend(scratchDirectory));
+    }
 
-        document = new PDDocument();
+    /**
+     * Create a builder drawing through given render backend
+     *
+     * @param backend Render backend, closed with builder
+     */
+    public PDFBuilder(RenderBackend backend) {
+        this.backend = backend;
 
         fontHeight = getFontHeight(defaultFont, textFontSize);
         pageNumber = 0;
     }
 
+    public RenderBackend getRenderBackend() {
+        return backend;
+    }
+
     public PageOrientation getPageOrientation() {
         return pageOrientation;
     }
@@ -99,12 +147,267 @@ public class PDFBuilder implements Closeable {
         fontHeight = getFontHeight(defaultFont, textFontSize);
 
         if (curPage != null) {
-            availableLines = estimateMaxLines(used_height - lineSpace - pageMargin, fontHeight, 0, 0);
+            availableLines = estimateRemainingLines();
             LOGGER.debug("Recalculated available lines:" + availableLines
                     + " used height: " + used_height);
         }
     }
 
+    public FontFallbackChain getFontFallbackChain() {
+        return fontFallbackChain;
+    }
+
+    /**
+     * Set fonts to draw subsequent texts with
+     *
+     * <p>Each character is drawn by the first font of chain covering it, primary font of chain
+     * replaces default font for line height calculation. Set null to go back to default font.</p>
+     *
+     * @param fontFallbackChain
+     */
+    public void setFontFallbackChain(FontFallbackChain fontFallbackChain) {
+        this.fontFallbackChain = fontFallbackChain;
+        this.defaultFont = fontFallbackChain != null ? fontFallbackChain.getPrimaryFont() : PreparedFont.standard(PreparedFont.HELVETICA);
+
+        setTextFontSize(textFontSize);
+    }
+
+    public ImageCache getImageCache() {
+        return imageCache;
+    }
+
+    /**
+     * Set cache to prepare images of subsequent printImage/drawImage calls with, process-wide cache is used by default
+     * @param imageCache
+     */
+    public void setImageCache(ImageCache imageCache) {
+        this.imageCache = imageCache;
+    }
+
+    public long getDeadline() {
+        return deadline;
+    }
+
+    /**
+     * Set wall-clock time by which generation must be finished, checked before every printed row and new page
+     * @param deadline Time in milliseconds as of {@link System#currentTimeMillis()}, -1 for no deadline
+     */
+    public void setDeadline(long deadline) {
+        this.deadline = deadline;
+    }
+
+    /**
+     * Set deadline of generation relatively to now
+     * @param timeoutMillis Time allowed in milliseconds
+     */
+    public void setTimeout(long timeoutMillis) {
+        setDeadline(System.currentTimeMillis() + timeoutMillis);
+    }
+
+    public int getMaxPages() {
+        return maxPages;
+    }
+
+    /**
+     * Set maximum number of pages this builder creates
+     * @param maxPages Page count, -1 for no limit
+     */
+    public void setMaxPages(int maxPages) {
+        this.maxPages = maxPages;
+    }
+
+    public long getMaxOutputBytes() {
+        return maxOutputBytes;
+    }
+
+    /**
+     * Set maximum size of document in bytes. It is checked against size of finished pages at page boundaries
+     * and enforced exactly when saving
+     * @param maxOutputBytes Size in bytes, -1 for no limit
+     */
+    public void setMaxOutputBytes(long maxOutputBytes) {
+        this.maxOutputBytes = maxOutputBytes;
+    }
+
+    public CancellationToken getCancellationToken() {
+        return cancellationToken;
+    }
+
+    /**
+     * Set token to cancel generation with, checked before every printed row and new page
+     * @param cancellationToken
+     */
+    public void setCancellationToken(CancellationToken cancellationToken) {
+        this.cancellationToken = cancellationToken;
+    }
+
+    public CheckpointStore getCheckpointStore() {
+        return checkpointStore;
+    }
+
+    /**
+     * Write checkpoints of generation into a store, every {@link CheckpointStore#getInterval()} pages, to be able
+     * to resume it with {@link #resumeFromCheckpoint()} after a crash or stop. Checkpoint files are deleted once
+     * document is saved.
+     *
+     * <p>Only {@link DirectPDFRenderBackend} documents can be checkpointed. For resumed output to be identical,
+     * mark position of each input row with {@link #markInputPosition(long, long)} before printing it with a single
+     * println/printlnWrapped call</p>
+     *
+     * @param checkpointStore Store, null to stop checkpointing
+     */
+    public void setCheckpointStore(CheckpointStore checkpointStore) {
+        if (checkpointStore != null && !(backend instanceof DirectPDFRenderBackend)) {
+            throw new IllegalArgumentException("Checkpoints need DirectPDFRenderBackend, "
+                    + "PDFBox documents can't be persisted and resumed byte for byte");
+        }
+
+        this.checkpointStore = checkpointStore;
+    }
+
+    /**
+     * Mark position of input row about to be printed, without fingerprint of input before it
+     * @param position Input position
+     * @throws IOException If input differs from input of resumed checkpoint
+     * @see #markInputPosition(long, long)
+     */
+    public void markInputPosition(long position) throws IOException {
+        markInputPosition(position, 0);
+    }
+
+    /**
+     * Mark position of input row about to be printed, e.g. its line number or byte offset.
+     * A resumed generation continues from position of row being printed when last checkpoint was written.
+     * After resuming, fingerprint marked at that position must be the same as when checkpoint was written,
+     * otherwise input has changed and pages printed before checkpoint don't belong to it
+     *
+     * @param position Input position
+     * @param fingerprint Fingerprint of input before position, e.g. a hash of all rows before it
+     * @throws IOException If input differs from input of resumed checkpoint
+     */
+    public void markInputPosition(long position, long fingerprint) throws IOException {
+        if (resumeInputPosition != -1 && position >= resumeInputPosition) {
+            if (position != resumeInputPosition || fingerprint != resumeInputFingerprint) {
+                throw new IOException("Input differs from input of checkpoint at position " + resumeInputPosition
+                        + ", delete checkpoint to start over");
+            }
+            resumeInputPosition = -1;
+        }
+
+        inputPosition = position;
+        inputFingerprint = fingerprint;
+        wrapOffset = 0;
+    }
+
+    /**
+     * Restore document and cursor of last checkpoint into this builder, which must be new and have same settings as
+     * the one which wrote checkpoint. Continue by printing input from returned position on, first printlnWrapped
+     * skips the part of its text printed before checkpoint. Marking returned position verifies that input before it
+     * is unchanged, see {@link #markInputPosition(long, long)}
+     *
+     * @return Input position to continue from, or -1 if there is no checkpoint (start from beginning)
+     * @throws IOException
+     */
+    public long resumeFromCheckpoint() throws IOException {
+        if (checkpointStore == null) {
+            throw new IOException("No checkpoint store is set");
+        }
+        if (curPage != null || pagesCreated > 0) {
+            throw new IOException("Only a new builder can resume from checkpoint");
+        }
+        if (!checkpointStore.exists() || !checkpointStore.read(this, (DirectPDFRenderBackend) backend)) {
+            return -1;
+        }
+
+        resumeWrapOffset = wrapOffset;
+        resumeInputPosition = inputPosition;
+        resumeInputFingerprint = inputFingerprint;
+
+        LOGGER.info("Resumed from checkpoint at page " + pageNumber + ", input position " + inputPosition);
+
+        return inputPosition;
+    }
+
+    /**
+     * Write input position and cursor at a page boundary, before next page is created
+     * @param out
+     * @throws IOException
+     */
+    void writeCheckpointState(DataOutput out) throws IOException {
+        out.writeUTF(getLayoutKey());
+        out.writeLong(inputPosition);
+        out.writeLong(inputFingerprint);
+        out.writeInt(wrapOffset);
+
+        out.writeInt(pageNumber);
+        out.writeInt(pagesCreated);
+        out.writeInt(textFontSize);
+        out.writeInt(maxLines);
+        out.writeInt(availableLines);
+        out.writeInt(curLines);
+        out.writeFloat(cur_x);
+        out.writeFloat(cur_y);
+        out.writeFloat(used_height);
+    }
+
+    /**
+     * Restore input position and cursor, next print starts a new page. Checkpoint is validated before any field
+     * changes, a rejected checkpoint leaves builder as it was
+     * @param in
+     * @throws IOException
+     */
+    void readCheckpointState(DataInput in) throws IOException {
+        String layoutKey = in.readUTF();
+        long position = in.readLong();
+        long fingerprint = in.readLong();
+        int offset = in.readInt();
+
+        int number = in.readInt();
+        int created = in.readInt();
+        int fontSize = in.readInt();
+
+        // Font size may have changed during generation, other settings must be same as when checkpoint was written
+        if (!layoutKey.equals(getLayoutKey(fontSize))) {
+            throw new IOException("Builder settings differ from settings of checkpoint: "
+                    + getLayoutKey(fontSize) + " / " + layoutKey);
+        }
+        // Fingerprint itself is compared once input reaches position, see markInputPosition
+        if (position < 0 || offset < 0 || created <= 0) {
+            throw new IOException("Checkpoint has no valid input position: " + position + ", wrap offset " + offset
+                    + ", pages " + created);
+        }
+
+        int lines = in.readInt();
+        int available = in.readInt();
+        int current = in.readInt();
+        float x = in.readFloat();
+        float y = in.readFloat();
+        float usedHeight = in.readFloat();
+
+        inputPosition = position;
+        inputFingerprint = fingerprint;
+        wrapOffset = offset;
+        pageNumber = number;
+        pagesCreated = created;
+        setTextFontSize(fontSize);
+        maxLines = lines;
+        availableLines = available;
+        curLines = current;
+        cur_x = x;
+        cur_y = y;
+        used_height = usedHeight;
+    }
+
+    private void writeCheckpoint() throws IOException {
+        DirectPDFRenderBackend directBackend = (DirectPDFRenderBackend) backend;
+        directBackend.finishPage();
+        checkpointStore.write(this, directBackend);
+
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Checkpoint written after page " + pageNumber + ", input position " + inputPosition);
+        }
+    }
+
     public PDPage getCurrentPage() {
         return curPage;
     }
@@ -214,14 +517,7 @@ public class PDFBuilder implements Closeable {
      * @throws IOException
      */
     public PDPageContentStream createPDPageContentStream(PDDocument document, PDPage page) throws IOException {
-        PDPageContentStream content = new PDPageContentStream(document, page);
-
-        // LANDSCAPE
-        if (Integer.valueOf(90).equals(page.getRotation())) { // Rotation could be null
-            content.concatenate2CTM(0, 1, -1, 0, page.getMediaBox().getWidth(), 0);
-        }
-
-        return content;
+        return PDFBoxRenderBackend.createContentStream(document, page);
     }
 
     /**
@@ -247,17 +543,33 @@ public class PDFBuilder implements Closeable {
      * @throws IOException
      */
     public float getEstimatedStringWidth(PDFont font, String text, int fontSize) throws IOException {
+        return getEstimatedStringWidth(prepare(font), text, fontSize);
+    }
+
+    /**
+     * Get estimated text width according prepared font, text and font size
+     *
+     * @param font Prepared font
+     * @param text Text string
+     * @param fontSize Font size
+     * @return Estimated text width
+     */
+    public float getEstimatedStringWidth(PreparedFont font, String text, int fontSize) {
         return font.getStringWidth(text) * fontSize / 1000;
     }
 
     /**
-     * Get estimated text width according text and font size by default font
+     * Get estimated text width according text and font size by default font, or font fallback chain if set
      * @param text Text string
      * @param fontSize Font size
      * @return Estimated text width
      * @throws IOException
      */
     public float getEstimatedStringWidth(String text, int fontSize) throws IOException {
+        if (fontFallbackChain != null) {
+            return fontFallbackChain.getStringWidth(text, fontSize);
+        }
+
         return getEstimatedStringWidth(defaultFont, text, fontSize);
     }
 
@@ -268,15 +580,95 @@ public class PDFBuilder implements Closeable {
      * @return
      */
     public float getFontHeight(PDFont font, int fontSize) {
-        return font.getFontDescriptor().getFontBoundingBox().getHeight() / 1000 * fontSize;
+        return getFontHeight(prepare(font), fontSize);
+    }
+
+    /**
+     * Estimate font heigh by prepared font and font size
+     * @param font Prepared font
+     * @param fontSize Font size like 12, 13
+     * @return
+     */
+    public float getFontHeight(PreparedFont font, int fontSize) {
+        return font.getFontBoundingBoxHeight() / 1000 * fontSize;
+    }
+
+    /**
+     * Prepare a PDFBox font, remembering last font prepared since measuring mostly uses one font
+     * @param font
+     * @return
+     */
+    private PreparedFont prepare(PDFont font) {
+        if (font != preparedSource) {
+            prepared = PreparedFont.of(font);
+            preparedSource = font;
+        }
+
+        return prepared;
     }
 
     public void close() throws IOException {
-        if (contentStream != null) {
-            contentStream.close();
+        if (!closed) {
+            closed = true;
+            backend.close();
+
+            // Keep checkpoint files to resume from
+            if (checkpointStore != null) {
+                checkpointStore.close();
+            }
         }
+    }
 
-        document.close();
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Check generation limits, closing builder and throwing if one is hit
+     * @param pageBoundary true when a new page is about to be created, to check page and output size limits too
+     * @throws IOException
+     */
+    private void checkLimits(boolean pageBoundary) throws IOException {
+        if (closed) {
+            throw new IOException("PDFBuilder is closed");
+        }
+
+        if (cancellationToken != null && cancellationToken.isCancelled()) {
+            abort(GenerationLimitException.Limit.CANCELLED, "Generation is cancelled");
+        }
+
+        if (deadline != -1 && System.currentTimeMillis() > deadline) {
+            abort(GenerationLimitException.Limit.DEADLINE, "Generation deadline passed at page " + pageNumber);
+        }
+
+        if (pageBoundary) {
+            if (maxPages != -1 && pagesCreated >= maxPages) {
+                abort(GenerationLimitException.Limit.MAX_PAGES, "Generation exceeds " + maxPages + " pages");
+            }
+
+            if (maxOutputBytes != -1 && backend.getOutputSize() > maxOutputBytes) {
+                abort(GenerationLimitException.Limit.MAX_OUTPUT_BYTES,
+                        "Generation exceeds " + maxOutputBytes + " bytes at page " + pageNumber);
+            }
+        }
+    }
+
+    /**
+     * Close builder, releasing document and scratch resources, and throw limit exception
+     * @param limit
+     * @param message
+     * @throws GenerationLimitException
+     */
+    private void abort(GenerationLimitException.Limit limit, String message) throws GenerationLimitException {
+        LOGGER.warn(message + ", closing document");
+
+        try {
+            close();
+        } catch (IOException e) {
+            LOGGER.warn("Unable to close document", e);
+        }
+
+        throw new GenerationLimitException(limit, message);
     }
 
     /**
@@ -362,7 +754,7 @@ public class PDFBuilder implements Closeable {
             float fontHeight = getFontHeight(defaultFont, attribute.getFontSize());
 
             // Calculate text width to wrap text in fixed width cell
-            List<String> lines = getLinesByWords(cells[i].toString(), defaultFont, attribute.getFontSize(), widthOfCell);
+            List<String> lines = getLinesByWords(cells[i].toString(), attribute.getFontSize(), widthOfCell);
             int totalLines = lines.size();
             float cellX = x;
             float cellY = y;
@@ -395,6 +787,17 @@ public class PDFBuilder implements Closeable {
         availableLines -= maxLinesUsed;
     }
 
+    /**
+     * Estimate lines of current font size which fit on current page, from next line down to bottom margin.
+     * Same measure as a new page starts with, see {@link #checkNewPage(boolean)}
+     * @return
+     */
+    private int estimateRemainingLines() {
+        float y = getNextLineYCord();
+
+        return y < pageMargin ? 0 : estimateMaxLines(y, fontHeight, 0, pageMargin);
+    }
+
     private float getNextLineYCord() {
         float y;
 
@@ -439,7 +842,7 @@ public class PDFBuilder implements Closeable {
 
         // Calculate new text position for this text line
         float x;
-        float textWidth = getEstimatedStringWidth(defaultFont, text, textFontSize);
+        float textWidth = getEstimatedStringWidth(text, textFontSize);
         switch (alignment) {
             default:
             case LEFT:
@@ -472,6 +875,90 @@ public class PDFBuilder implements Closeable {
     }
 
 
+    /**
+     * Print a line of text, wrapping it at word boundaries into as many lines as needed to fit page width
+     *
+     * <p>Wrapped lines continue on a new page automatically when current page is full</p>
+     *
+     * @param text
+     * @param alignment
+     * @throws IOException
+     */
+    public void printlnWrapped(String text, TextAlignment alignment) throws IOException {
+        // Lines before resumed offset are in checkpointed pages already
+        printWrappedLines(text, alignment, resumeWrapOffset, -1, null, 0);
+
+        resumeWrapOffset = 0;
+        wrapOffset = 0;
+    }
+
+    /**
+     * Print the wrapped lines of text starting at an offset in a range. The one line flow shared by printlnWrapped,
+     * pagination and page range rendering, so that they lay out pages identically
+     *
+     * @param text
+     * @param alignment
+     * @param fromOffset Offset of first line to print, lines starting before it are skipped
+     * @param toOffset Offset of first line not to print, -1 to print up to end of text
+     * @param index Index to record pages opened by printed lines into, null for none
+     * @param row Row of text, for index
+     * @throws IOException
+     */
+    void printWrappedLines(String text, TextAlignment alignment, int fromOffset, int toOffset, PaginationIndex index,
+                           int row) throws IOException {
+        float textAreaWidth = getTextAreaWidth();
+        int offset = 0;
+
+        for (String line : getLinesByWords(text, textFontSize, textAreaWidth)) {
+            if (toOffset != -1 && offset >= toOffset) {
+                break;
+            }
+
+            if (offset >= fromOffset) {
+                int previousPageNumber = pageNumber;
+                wrapOffset = offset;
+                println(line, alignment);
+
+                // Line opened a new page
+                if (index != null && pageNumber != previousPageNumber) {
+                    index.addPage(row, offset);
+                }
+            }
+            offset += line.length();
+        }
+    }
+
+    /**
+     * Width between page margins, which printlnWrapped wraps text to
+     * @return
+     */
+    float getTextAreaWidth() {
+        return getEffectivePageWidth(curPage != null ? curPage : createPDPage(pageSize)) - pageMargin * 2;
+    }
+
+    /**
+     * Settings which line flow depends on. Builders with equal keys break the same lines into the same pages
+     * @return
+     */
+    String getLayoutKey() {
+        return getLayoutKey(textFontSize);
+    }
+
+    private String getLayoutKey(int fontSize) {
+        StringBuilder key = new StringBuilder();
+        key.append(pageSize).append(' ').append(pageOrientation)
+                .append(' ').append(fontSize).append(' ').append(pageMargin).append(' ').append(lineSpace)
+                .append(' ').append(defaultFont.getBaseFont());
+
+        if (fontFallbackChain != null) {
+            for (int i = 1; i < fontFallbackChain.getFontCount(); ++i) {
+                key.append(',').append(fontFallbackChain.getFont(i).getBaseFont());
+            }
+        }
+
+        return key.toString();
+    }
+
     /**
      * "Draw" a text onto PDF document page
      *
@@ -490,28 +977,136 @@ public class PDFBuilder implements Closeable {
                 && attributes.getBgY() != -1
                 && attributes.getBgHeight() != -1
                 && attributes.getBgWidth() != -1) {
-            contentStream.setNonStrokingColor(attributes.getBgColor());
-            contentStream.fillRect(attributes.getBgX(), attributes.getBgY(), attributes.getBgWidth(), attributes.getBgHeight());
+            backend.fillRect(attributes.getBgX(), attributes.getBgY(), attributes.getBgWidth(), attributes.getBgHeight(),
+                    attributes.getBgColor());
         }
 
-        // output text
-        contentStream.beginText();
-        contentStream.setFont(defaultFont, attributes.getFontSize());
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Moving text position to "
+                    + "x=" + x + " "
+                    + "y=" + y);
+        }
 
+        // output text
+        backend.beginText(x, y, attributes.getFgColor());
 
-        LOGGER.debug("Moving text position to "
-                + "x=" + x + " "
-                + "y=" + y);
+        if (fontFallbackChain != null) {
+            // Each run continues where previous one ends
+            for (FontFallbackChain.FontRun run : fontFallbackChain.split(text)) {
+                backend.showText(fontFallbackChain.getFont(run.getFontIndex()), attributes.getFontSize(), run.getEncodedText());
+            }
+        }
+        else {
+            backend.showText(defaultFont, attributes.getFontSize(), text);
+        }
 
-        contentStream.moveTextPositionByAmount(x, y);
-        contentStream.setNonStrokingColor(attributes.getFgColor());
-        contentStream.drawString(text);
-        contentStream.endText();
+        backend.endText();
 
 //        contentStream.drawLine(x, y, x + 100, y);
 
     }
 
+    /**
+     * Print an image as a block of lines, starting on a new page if it doesn't fit on current page
+     *
+     * <p>Image top is aligned with top of next text line, subsequent lines continue below image</p>
+     *
+     * @param imageData Content of a JPEG, PNG, GIF or BMP file
+     * @param width Width on page
+     * @param height Height on page
+     * @param alignment Horizontal alignment between page margins
+     * @throws IOException
+     */
+    public void printImage(byte[] imageData, float width, float height, TextAlignment alignment) throws IOException {
+        printImage(imageCache.prepare(imageData), width, height, alignment);
+    }
+
+    /**
+     * Print a prepared image as a block of lines, starting on a new page if it doesn't fit on current page
+     *
+     * <p>An image larger than the area between page margins is scaled down to fit it, keeping its aspect ratio</p>
+     *
+     * @param image Prepared image
+     * @param width Width on page
+     * @param height Height on page
+     * @param alignment Horizontal alignment between page margins
+     * @throws IOException
+     */
+    public void printImage(PreparedImage image, float width, float height, TextAlignment alignment) throws IOException {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Image size must be positive: " + width + "x" + height);
+        }
+
+        checkNewPage(false);
+
+        float maxWidth = getEffectivePageWidth(curPage) - pageMargin * 2;
+        float maxHeight = getEffectivePageHeight(curPage) - pageMargin * 2;
+        if (width > maxWidth || height > maxHeight) {
+            float scale = Math.min(maxWidth / width, maxHeight / height);
+            width *= scale;
+            height *= scale;
+        }
+
+        float top = getNextLineYCord() + fontHeight;
+
+        // Move to next page unless image is the first thing on current page anyway
+        if (top - height < pageMargin && curLines > 0) {
+            checkNewPage(true);
+            top = getNextLineYCord() + fontHeight;
+        }
+
+        float x;
+        switch (alignment) {
+            default:
+            case LEFT:
+                x = pageMargin;
+                break;
+            case RIGHT:
+                x = getEffectivePageWidth(curPage) - pageMargin - width;
+                break;
+            case MIDDLE:
+                x = (getEffectivePageWidth(curPage) - width) / 2;
+                break;
+        }
+
+        drawImage(image, x, top - height, width, height);
+
+        cur_x = x;
+        cur_y = top - height;
+        used_height = top - height;
+
+        curLines++;
+        availableLines = estimateRemainingLines();
+    }
+
+    /**
+     * "Draw" an image onto PDF document page
+     *
+     * @param imageData Content of a JPEG, PNG, GIF or BMP file
+     * @param x X of lower left corner
+     * @param y Y of lower left corner
+     * @param width Width on page
+     * @param height Height on page
+     * @throws IOException
+     */
+    public void drawImage(byte[] imageData, float x, float y, float width, float height) throws IOException {
+        drawImage(imageCache.prepare(imageData), x, y, width, height);
+    }
+
+    /**
+     * "Draw" a prepared image onto PDF document page, an image is embedded only once per document
+     *
+     * @param image Prepared image
+     * @param x X of lower left corner
+     * @param y Y of lower left corner
+     * @param width Width on page
+     * @param height Height on page
+     * @throws IOException
+     */
+    public void drawImage(PreparedImage image, float x, float y, float width, float height) throws IOException {
+        backend.drawImage(image, x, y, width, height);
+    }
+
     /**
      * Save to a file
      * @param filename
@@ -519,8 +1114,7 @@ public class PDFBuilder implements Closeable {
      * @throws COSVisitorException
      */
     public void save(String filename) throws IOException, COSVisitorException {
-        contentStream.close();
-        document.save(filename);
+        save(new File(filename));
     }
 
     /**
@@ -530,8 +1124,39 @@ public class PDFBuilder implements Closeable {
      * @throws COSVisitorException
      */
     public void save(OutputStream outputStream) throws IOException, COSVisitorException {
-        contentStream.close();
-        document.save(outputStream);
+        checkLimits(false);
+
+        // Checkpoint was written while printing input at resumed position, so input can't have ended before it
+        if (resumeInputPosition != -1) {
+            throw new IOException("Input ended before position " + resumeInputPosition
+                    + " of checkpoint, delete checkpoint to start over");
+        }
+
+        if (maxOutputBytes == -1) {
+            backend.save(outputStream);
+            deleteCheckpoint();
+            return;
+        }
+
+        try {
+            backend.save(new LimitedOutputStream(outputStream, maxOutputBytes));
+            deleteCheckpoint();
+        } catch (GenerationLimitException e) {
+            // Part of document is written already, the caller has to discard it
+            abort(e.getLimit(), e.getMessage());
+        } catch (COSVisitorException e) {
+            // PDFBox wraps exceptions of output stream
+            if (e.getCause() instanceof GenerationLimitException) {
+                abort(((GenerationLimitException) e.getCause()).getLimit(), e.getCause().getMessage());
+            }
+            throw e;
+        }
+    }
+
+    private void deleteCheckpoint() throws IOException {
+        if (checkpointStore != null) {
+            checkpointStore.delete();
+        }
     }
 
     /**
@@ -541,8 +1166,13 @@ public class PDFBuilder implements Closeable {
      * @throws COSVisitorException
      */
     public void save(File file) throws IOException, COSVisitorException {
-        contentStream.close();
-        document.save(file);
+        OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(file));
+
+        try {
+            save(outputStream);
+        } finally {
+            outputStream.close();
+        }
     }
 
     /**
@@ -555,7 +1185,7 @@ public class PDFBuilder implements Closeable {
     private void addPageNumber(PDPage page, int number, String pattern) throws IOException {
         float effWidth = getEffectivePageWidth(page);
         String pageNumberText = String.format(pattern, number);
-        float textWidth = getEstimatedStringWidth(defaultFont, pageNumberText, pageNumberFontSize);
+        float textWidth = getEstimatedStringWidth(pageNumberText, pageNumberFontSize);
         float x = (effWidth - textWidth) / 2;
         float y = pageMargin / 2;
 
@@ -578,16 +1208,28 @@ public class PDFBuilder implements Closeable {
     private boolean checkNewPage(boolean forceNewPage) throws IOException {
         boolean newPageCreated = false;
 
+        // Every printed row passes here, check cancellation and deadline before page is known
+        boolean pageBoundary = forceNewPage || curPage == null || availableLines <= 0;
+        checkLimits(pageBoundary);
+
         // Check if it is necessary to create new page
-        if (forceNewPage || curPage == null || availableLines <= 0) {
+        if (pageBoundary) {
             newPageCreated = true;
 
+            // Current page is complete
+            if (checkpointStore != null && curPage != null && pagesCreated % checkpointStore.getInterval() == 0) {
+                writeCheckpoint();
+            }
+
             LOGGER.debug("Creating new page: page size: " + pageSize);
 
             PDPage page = createPDPage(pageSize);
-            document.addPage(page);
+            Integer rotation = page.getRotation(); // Rotation could be null
+            backend.beginPage(page.getMediaBox().getWidth(), page.getMediaBox().getHeight(),
+                    rotation != null ? rotation : 0);
             curPage = page;
             pageNumber++;
+            pagesCreated++;
 
             maxLines = availableLines = estimateMaxLines(getEffectivePageHeight(page),
                     getFontHeight(defaultFont, textFontSize),
@@ -595,14 +1237,6 @@ public class PDFBuilder implements Closeable {
 
             curLines = 0;
 
-            // Close previous content stream
-            if (contentStream != null) {
-                contentStream.close();
-            }
-
-            // Create new content stream
-            contentStream = createPDPageContentStream(document, curPage);
-
             // Output page number string
             if (outputPageNumber) {
                 addPageNumber(curPage, pageNumber, pageNumberPattern);
@@ -629,12 +1263,49 @@ public class PDFBuilder implements Closeable {
      * @throws IOException
      */
     public List<String> getLinesByWords(String text, PDFont font, int fontSize, float fixedWidth) throws IOException {
+        return getLinesByWords(text, prepare(font), fontSize, fixedWidth);
+    }
+
+    /**
+     * Break text into multiple lines at boundary of word according fixed width, prepared font and font size
+     *
+     * @param text
+     * @param font
+     * @param fontSize
+     * @param fixedWidth
+     * @return
+     */
+    public List<String> getLinesByWords(String text, PreparedFont font, int fontSize, float fixedWidth) {
+        return getLinesByWords(text, font, null, fontSize, fixedWidth);
+    }
+
+    /**
+     * Break text into multiple lines at boundary of word according fixed width and font size,
+     * measuring by default font or font fallback chain if set
+     *
+     * @param text
+     * @param fontSize
+     * @param fixedWidth
+     * @return
+     * @throws IOException
+     */
+    public List<String> getLinesByWords(String text, int fontSize, float fixedWidth) throws IOException {
+        return getLinesByWords(text, defaultFont, fontFallbackChain, fontSize, fixedWidth);
+    }
+
+    /**
+     * Word wrap measuring by chain if not null, by font otherwise
+     */
+    private List<String> getLinesByWords(String text, PreparedFont font, FontFallbackChain chain, int fontSize,
+                                         float fixedWidth) {
         List<String> result = new ArrayList<String>();
 
         int start = 0;
         int end = 0;
         for ( int i : getPossibleWrapPointsByWords(text) ) {
-            float width = font.getStringWidth(text.substring(start, i)) / 1000 * fontSize;
+            float width = chain != null
+                    ? chain.getStringWidth(text, start, i, fontSize)
+                    : font.getStringWidth(text, start, i) / 1000 * fontSize;
             if ( start < end && width > fixedWidth ) {
                 result.add(text.substring(start, end));
                 start = end;
@@ -0,0 +1,20 @@
+package com.github.momogentoo.pdfboxprintln.core;
+
+import java.io.IOException;
+
+/**
+ * PDFBuilderFactory
+ * <p>
+ * Creates builders with identical settings (page size, orientation, fonts, margins...), so separate passes over
+ * the same rows lay them out identically
+ */
+public interface PDFBuilderFactory {
+
+    /**
+     * Create a builder drawing through given backend, with all settings applied and nothing printed yet
+     * @param backend Render backend
+     * @return
+     * @throws IOException
+     */
+    PDFBuilder createBuilder(RenderBackend backend) throws IOException;
+}
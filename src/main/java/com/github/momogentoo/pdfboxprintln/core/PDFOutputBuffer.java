@@ -0,0 +1,162 @@
+package com.github.momogentoo.pdfboxprintln.core;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * PDFOutputBuffer
+ * <p>
+ * Growable byte buffer with appenders for PDF tokens (ASCII keywords, numbers and literal strings)
+ * which don't create intermediate strings
+ */
+class PDFOutputBuffer {
+    // Fraction digits of real numbers, 1/10000 unit is well below device resolution
+    private static final int REAL_SCALE = 10000;
+    private static final byte[] DIGITS = "0123456789".getBytes();
+
+    private byte[] bytes;
+    private int size;
+
+    PDFOutputBuffer(int capacity) {
+        bytes = new byte[capacity];
+    }
+
+    private void ensureCapacity(int additional) {
+        if (size + additional > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + additional));
+        }
+    }
+
+    /**
+     * Append ASCII text, e.g. operators and names
+     */
+    PDFOutputBuffer append(String ascii) {
+        int length = ascii.length();
+        ensureCapacity(length);
+
+        for (int i = 0; i < length; ++i) {
+            bytes[size++] = (byte) ascii.charAt(i);
+        }
+
+        return this;
+    }
+
+    PDFOutputBuffer append(char c) {
+        ensureCapacity(1);
+        bytes[size++] = (byte) c;
+        return this;
+    }
+
+    PDFOutputBuffer append(long value) {
+        ensureCapacity(20);
+
+        if (value < 0) {
+            bytes[size++] = '-';
+            value = -value;
+        }
+
+        int start = size;
+        do {
+            bytes[size++] = DIGITS[(int) (value % 10)];
+            value /= 10;
+        } while (value > 0);
+
+        // Digits were written least significant first
+        for (int i = start, j = size - 1; i < j; ++i, --j) {
+            byte digit = bytes[i];
+            bytes[i] = bytes[j];
+            bytes[j] = digit;
+        }
+
+        return this;
+    }
+
+    /**
+     * Append a real number with up to 4 fraction digits, trailing zeros trimmed
+     */
+    PDFOutputBuffer append(float value) {
+        long scaled = Float.isNaN(value) ? 0 : Math.round((double) value * REAL_SCALE);
+
+        if (scaled < 0) {
+            append('-');
+            scaled = -scaled;
+        }
+
+        append(scaled / REAL_SCALE);
+
+        int fraction = (int) (scaled % REAL_SCALE);
+        if (fraction != 0) {
+            ensureCapacity(5);
+            bytes[size++] = '.';
+
+            for (int divisor = REAL_SCALE / 10; fraction != 0; divisor /= 10) {
+                bytes[size++] = DIGITS[fraction / divisor];
+                fraction %= divisor;
+            }
+        }
+
+        return this;
+    }
+
+    PDFOutputBuffer append(byte[] data, int offset, int length) {
+        ensureCapacity(length);
+        System.arraycopy(data, offset, bytes, size, length);
+        size += length;
+        return this;
+    }
+
+    PDFOutputBuffer append(PDFOutputBuffer buffer) {
+        return append(buffer.bytes, 0, buffer.size);
+    }
+
+    /**
+     * Append a literal string of single-byte codes, escaping delimiters and non-printable bytes.
+     * Characters above 255 can't be represented and are written as '?'
+     */
+    PDFOutputBuffer appendLiteralString(String text) {
+        int length = text.length();
+
+        // Worst case: every character escaped as octal
+        ensureCapacity(length * 4 + 2);
+        bytes[size++] = '(';
+
+        for (int i = 0; i < length; ++i) {
+            char c = text.charAt(i);
+
+            if (c == '(' || c == ')' || c == '\\') {
+                bytes[size++] = '\\';
+                bytes[size++] = (byte) c;
+            }
+            else if (c < ' ' || (c >= 0x7f && c <= 0xff)) {
+                bytes[size++] = '\\';
+                bytes[size++] = DIGITS[(c >> 6) & 7];
+                bytes[size++] = DIGITS[(c >> 3) & 7];
+                bytes[size++] = DIGITS[c & 7];
+            }
+            else {
+                bytes[size++] = c > 0xff ? (byte) '?' : (byte) c;
+            }
+        }
+
+        bytes[size++] = ')';
+
+        return this;
+    }
+
+    int size() {
+        return size;
+    }
+
+    byte[] array() {
+        return bytes;
+    }
+
+    void reset() {
+        size = 0;
+    }
+
+    void writeTo(OutputStream outputStream) throws IOException {
+        outputStream.write(bytes, 0, size);
+    }
+}
@@ -0,0 +1,149 @@
+package com.github.momogentoo.pdfboxprintln.core;
+
+import org.apache.pdfbox.exceptions.COSVisitorException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * PaginatedDocument
+ * <p>
+ * Text rows printed with {@link PDFBuilder#printlnWrapped(String, TextAlignment)}, of which any page or page range
+ * can be rendered into a standalone PDF without laying out the pages before it.
+ * <p>
+ * A layout pass over all rows, which draws nothing, records a {@link PaginationIndex} first. Rendering a range then
+ * starts a fresh builder at the range's first position and stops at the position of the page following it. Rendered
+ * pages are identical to the same pages of the whole document.
+ * <p>
+ * Rows are read by index, a large report can provide a list which loads rows lazily (e.g. from line offsets of a file).
+ */
+public class PaginatedDocument {
+    private final List<String> rows;
+    private final TextAlignment alignment;
+    private final PDFBuilderFactory builderFactory;
+    private PaginationIndex index;
+
+    /**
+     * @param rows Text rows
+     * @param alignment Alignment of rows
+     * @param builderFactory Creates builders for layout pass and rendering, with same settings every time
+     */
+    public PaginatedDocument(List<String> rows, TextAlignment alignment, PDFBuilderFactory builderFactory) {
+        this.rows = rows;
+        this.alignment = alignment;
+        this.builderFactory = builderFactory;
+    }
+
+    /**
+     * Use an index stored from a previous layout pass over the same rows
+     * @param rows Text rows
+     * @param alignment Alignment of rows
+     * @param builderFactory Creates builders with settings the index was laid out with
+     * @param index Pagination index
+     */
+    public PaginatedDocument(List<String> rows, TextAlignment alignment, PDFBuilderFactory builderFactory,
+                             PaginationIndex index) {
+        this(rows, alignment, builderFactory);
+
+        if (index.getRowCount() != rows.size()) {
+            throw new IllegalArgumentException("Pagination index is laid out for " + index.getRowCount()
+                    + " rows, not " + rows.size());
+        }
+        this.index = index;
+    }
+
+    /**
+     * Get pagination index, running layout pass on first call
+     * @return
+     * @throws IOException
+     */
+    public PaginationIndex getIndex() throws IOException {
+        if (index == null) {
+            index = paginate();
+        }
+
+        return index;
+    }
+
+    public int getPageCount() throws IOException {
+        return getIndex().getPageCount();
+    }
+
+    /**
+     * Lay out all rows without drawing, recording where each page starts
+     * @return
+     * @throws IOException
+     */
+    private PaginationIndex paginate() throws IOException {
+        PDFBuilder pdfBuilder = builderFactory.createBuilder(new NullRenderBackend());
+
+        try {
+            PaginationIndex result = new PaginationIndex(pdfBuilder.getLayoutKey(), pdfBuilder.getPageNumber() + 1, rows.size());
+
+            for (int row = 0; row < rows.size(); ++row) {
+                pdfBuilder.printWrappedLines(rows.get(row), alignment, 0, -1, result, row);
+            }
+
+            return result;
+        } finally {
+            pdfBuilder.close();
+        }
+    }
+
+    /**
+     * Render a single page into a standalone PDF with default render backend
+     * @param page Page position, 1 to page count
+     * @param outputStream
+     * @throws IOException
+     * @throws COSVisitorException
+     */
+    public void renderPage(int page, OutputStream outputStream) throws IOException, COSVisitorException {
+        renderPages(page, page, new PDFBoxRenderBackend(), outputStream);
+    }
+
+    /**
+     * Render a page range into a standalone PDF
+     * @param firstPage Position of first page, 1 to page count
+     * @param lastPage Position of last page, inclusive
+     * @param backend Render backend, closed afterwards
+     * @param outputStream
+     * @throws IOException
+     * @throws COSVisitorException
+     */
+    public void renderPages(int firstPage, int lastPage, RenderBackend backend, OutputStream outputStream)
+            throws IOException, COSVisitorException {
+        PDFBuilder pdfBuilder = builderFactory.createBuilder(backend);
+
+        try {
+            PaginationIndex index = getIndex();
+
+            if (firstPage > lastPage) {
+                throw new IllegalArgumentException("Page range " + firstPage + "-" + lastPage + " is empty");
+            }
+            if (!index.getLayoutKey().equals(pdfBuilder.getLayoutKey())) {
+                throw new IOException("Builder settings differ from settings of pagination index: "
+                        + pdfBuilder.getLayoutKey() + " / " + index.getLayoutKey());
+            }
+
+            int startRow = index.getStartRow(firstPage);
+            int startOffset = index.getWrapOffset(firstPage);
+
+            // Range ends where page following it starts, or with last row
+            boolean toEnd = lastPage >= index.getPageCount();
+            int endRow = toEnd ? rows.size() : index.getStartRow(lastPage + 1);
+            int endOffset = toEnd ? 0 : index.getWrapOffset(lastPage + 1);
+
+            pdfBuilder.setPageNumber(index.getPageNumber(firstPage) - 1);
+
+            for (int row = startRow; row < endRow || (row == endRow && endOffset > 0); ++row) {
+                pdfBuilder.printWrappedLines(rows.get(row), alignment, row == startRow ? startOffset : 0,
+                        row == endRow ? endOffset : -1, null, 0);
+            }
+
+            pdfBuilder.save(outputStream);
+        } finally {
+            pdfBuilder.close();
+        }
+    }
+}
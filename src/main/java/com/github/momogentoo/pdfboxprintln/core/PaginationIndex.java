@@ -0,0 +1,146 @@
+package com.github.momogentoo.pdfboxprintln.core;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * PaginationIndex
+ * <p>
+ * Where each page of a {@link PaginatedDocument} starts: the row, and the offset in that row's text when a wrapped
+ * row continues from previous page. Every page starts with a fresh cursor (top of page, all lines available), so
+ * the position and the page number are all that's needed to render a page on its own.
+ * <p>
+ * The index takes 8 bytes per page, and can be stored with {@link #writeTo(DataOutput)} to skip layout pass
+ * next time the same rows are previewed with the same settings.
+ */
+public class PaginationIndex {
+    private static final int MAGIC = 0x5042504e; // PBPN
+    private static final int INITIAL_CAPACITY = 64;
+
+    // Settings the index is laid out with, see PDFBuilder.getLayoutKey()
+    private final String layoutKey;
+    private final int firstPageNumber;
+    private final int rowCount;
+
+    private int pageCount = 0;
+    private int[] startRows;
+    private int[] wrapOffsets;
+
+    PaginationIndex(String layoutKey, int firstPageNumber, int rowCount) {
+        this(layoutKey, firstPageNumber, rowCount, new int[INITIAL_CAPACITY], new int[INITIAL_CAPACITY], 0);
+    }
+
+    private PaginationIndex(String layoutKey, int firstPageNumber, int rowCount,
+                            int[] startRows, int[] wrapOffsets, int pageCount) {
+        this.layoutKey = layoutKey;
+        this.firstPageNumber = firstPageNumber;
+        this.rowCount = rowCount;
+        this.startRows = startRows;
+        this.wrapOffsets = wrapOffsets;
+        this.pageCount = pageCount;
+    }
+
+    void addPage(int startRow, int wrapOffset) {
+        if (pageCount == startRows.length) {
+            startRows = Arrays.copyOf(startRows, pageCount * 2);
+            wrapOffsets = Arrays.copyOf(wrapOffsets, pageCount * 2);
+        }
+
+        startRows[pageCount] = startRow;
+        wrapOffsets[pageCount] = wrapOffset;
+        pageCount++;
+    }
+
+    String getLayoutKey() {
+        return layoutKey;
+    }
+
+    public int getPageCount() {
+        return pageCount;
+    }
+
+    /**
+     * @return Number of rows paginated
+     */
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * @param page Page position, 1 to page count
+     * @return Index of row page starts with
+     */
+    public int getStartRow(int page) {
+        return startRows[checkPage(page) - 1];
+    }
+
+    /**
+     * @param page Page position, 1 to page count
+     * @return Offset in text of start row where page starts, 0 unless row is wrapped over previous page
+     */
+    public int getWrapOffset(int page) {
+        return wrapOffsets[checkPage(page) - 1];
+    }
+
+    /**
+     * @param page Page position, 1 to page count
+     * @return Number printed on page, differs from position if builders start with a page number
+     */
+    public int getPageNumber(int page) {
+        return firstPageNumber + checkPage(page) - 1;
+    }
+
+    private int checkPage(int page) {
+        if (page < 1 || page > pageCount) {
+            throw new IndexOutOfBoundsException("Page " + page + " of " + pageCount);
+        }
+
+        return page;
+    }
+
+    /**
+     * Write index in a compact binary form
+     * @param out
+     * @throws IOException
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeUTF(layoutKey);
+        out.writeInt(firstPageNumber);
+        out.writeInt(rowCount);
+        out.writeInt(pageCount);
+
+        for (int i = 0; i < pageCount; ++i) {
+            out.writeInt(startRows[i]);
+            out.writeInt(wrapOffsets[i]);
+        }
+    }
+
+    /**
+     * Read an index written by {@link #writeTo(DataOutput)}
+     * @param in
+     * @return
+     * @throws IOException
+     */
+    public static PaginationIndex readFrom(DataInput in) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a pagination index");
+        }
+
+        String layoutKey = in.readUTF();
+        int firstPageNumber = in.readInt();
+        int rowCount = in.readInt();
+        int pageCount = in.readInt();
+
+        int[] startRows = new int[Math.max(pageCount, 1)];
+        int[] wrapOffsets = new int[Math.max(pageCount, 1)];
+        for (int i = 0; i < pageCount; ++i) {
+            startRows[i] = in.readInt();
+            wrapOffsets[i] = in.readInt();
+        }
+
+        return new PaginationIndex(layoutKey, firstPageNumber, rowCount, startRows, wrapOffsets, pageCount);
+    }
+}
@@ -0,0 +1,272 @@
+package com.github.momogentoo.pdfboxprintln.core;
+
+import org.apache.log4j.Logger;
+import org.apache.pdfbox.cos.COSDictionary;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.encoding.Encoding;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.apache.pdfbox.pdmodel.font.PDFontDescriptor;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * PreparedFont
+ * <p>
+ * A font as PDFBuilder measures and draws it: base font name, glyph width and Unicode character of each single-byte
+ * code, and height of font bounding box.
+ * <p>
+ * Standard 14 fonts are prepared by name from {@link StandardFontMetrics} tables, without any PDFBox font object.
+ * The {@link PDFont} of a font is only resolved by a backend drawing with PDFBox, see {@link #getPDFont()}.
+ * Symbol and ZapfDingbats are drawn in their built-in encoding, their font dictionaries have no /Encoding.
+ * Other fonts, e.g. TrueType fonts loaded by PDTrueTypeFont.loadTTF, are prepared from their PDFont.
+ * Instances are immutable and can be shared among builders and threads.
+ */
+public class PreparedFont {
+    public static final String HELVETICA = "Helvetica";
+
+    private static final Logger LOGGER = Logger.getLogger(PreparedFont.class);
+    private static final int CODES = 256;
+    private static final int REPLACEMENT_CODE = '?';
+
+    // Prepared Standard 14 fonts by base font name
+    private static final ConcurrentMap<String, PreparedFont> STANDARD_FONTS = new ConcurrentHashMap<String, PreparedFont>();
+
+    private final String baseFont;
+    private final boolean standard14;
+    private final boolean builtInEncoding;
+    private final float[] widths;
+    private final char[] characters;
+    private final float fontBoundingBoxHeight;
+
+    // resolved on first use for Standard 14 fonts
+    private volatile PDFont font;
+
+    private PreparedFont(String baseFont, boolean standard14, boolean builtInEncoding, float[] widths, char[] characters,
+                         float fontBoundingBoxHeight, PDFont font) {
+        this.baseFont = baseFont;
+        this.standard14 = standard14;
+        this.builtInEncoding = builtInEncoding;
+        this.widths = widths;
+        this.characters = characters;
+        this.fontBoundingBoxHeight = fontBoundingBoxHeight;
+        this.font = font;
+    }
+
+    /**
+     * Get a Standard 14 font by name
+     *
+     * @param baseFont Base font name, e.g. Helvetica
+     * @return Prepared font, same instance for same name
+     */
+    public static PreparedFont standard(String baseFont) {
+        PreparedFont prepared = STANDARD_FONTS.get(baseFont);
+
+        if (prepared == null) {
+            if (!StandardFontMetrics.isStandard14(baseFont)) {
+                throw new IllegalArgumentException("Not a standard 14 font: " + baseFont);
+            }
+
+            prepared = prepareStandard(baseFont);
+            PreparedFont existing = STANDARD_FONTS.putIfAbsent(baseFont, prepared);
+            if (existing != null) {
+                prepared = existing;
+            }
+        }
+
+        return prepared;
+    }
+
+    private static PreparedFont prepareStandard(String baseFont) {
+        StandardFontMetrics metrics = StandardFontMetrics.forName(baseFont);
+
+        float[] widths = new float[CODES];
+        char[] characters = new char[CODES];
+        for (int code = 0; code < CODES; ++code) {
+            widths[code] = metrics.getWidth(code);
+            characters[code] = metrics.getCharacter(code);
+        }
+
+        return new PreparedFont(baseFont, true, metrics.hasBuiltInEncoding(), widths, characters,
+                metrics.getFontBoundingBoxHeight(), null);
+    }
+
+    /**
+     * Prepare a PDFBox font. A Standard 14 font as PDFBox creates it is the same as {@link #standard(String)}
+     *
+     * @param font Font
+     * @return Prepared font
+     */
+    public static PreparedFont of(PDFont font) {
+        if (isUnmodifiedStandard14(font)) {
+            return standard(font.getBaseFont());
+        }
+
+        return prepare(font);
+    }
+
+    /**
+     * Whether font is a Standard 14 font as PDFBox creates it: WinAnsiEncoding, no widths, no descriptor
+     */
+    private static boolean isUnmodifiedStandard14(PDFont font) {
+        if (!(font instanceof PDType1Font) || !StandardFontMetrics.isStandard14(font.getBaseFont())) {
+            return false;
+        }
+
+        COSDictionary dictionary = (COSDictionary) font.getCOSObject();
+        return dictionary.getDictionaryObject(COSName.ENCODING) == COSName.WIN_ANSI_ENCODING
+                && !dictionary.containsKey(COSName.WIDTHS)
+                && !dictionary.containsKey(COSName.FONT_DESC);
+    }
+
+    private static PreparedFont prepare(PDFont font) {
+        float[] widths = new float[CODES];
+        char[] characters = new char[CODES];
+        byte[] code = new byte[1];
+
+        for (int i = 0; i < CODES; ++i) {
+            code[0] = (byte) i;
+            try {
+                widths[i] = font.getFontWidth(code, 0, 1);
+            } catch (IOException e) {
+                LOGGER.debug("No width for code " + i + " of font " + font.getBaseFont(), e);
+            }
+        }
+
+        Encoding encoding = null;
+        try {
+            encoding = font.getFontEncoding();
+        } catch (RuntimeException e) {
+            LOGGER.debug("Unable to read encoding of font " + font.getBaseFont(), e);
+        }
+
+        if (encoding != null) {
+            for (Map.Entry<Integer, String> entry : encoding.getCodeToNameMap().entrySet()) {
+                int i = entry.getKey();
+                String character = Encoding.getCharacterForName(entry.getValue());
+
+                if (i < 0 || i >= CODES || character == null || character.length() != 1) {
+                    continue;
+                }
+
+                // A zero width means font program has no glyph for that name, except for blanks
+                if (widths[i] > 0 || Character.isSpaceChar(character.charAt(0))) {
+                    characters[i] = character.charAt(0);
+                }
+            }
+        }
+        else {
+            LOGGER.warn("Font " + font.getBaseFont() + " has no encoding, it has no characters to draw");
+        }
+
+        PDFontDescriptor descriptor = font.getFontDescriptor();
+        PDRectangle boundingBox = descriptor != null ? descriptor.getFontBoundingBox() : null;
+
+        return new PreparedFont(font.getBaseFont(), false, false, widths, characters,
+                boundingBox != null ? boundingBox.getHeight() : 1000, font);
+    }
+
+    public String getBaseFont() {
+        return baseFont;
+    }
+
+    /**
+     * @return true if font is a Standard 14 font, which is referenced by name and needs no font program
+     */
+    public boolean isStandard14() {
+        return standard14;
+    }
+
+    /**
+     * @return true if codes are in font's built-in encoding, whose font dictionary must not declare an /Encoding
+     */
+    public boolean hasBuiltInEncoding() {
+        return builtInEncoding;
+    }
+
+    /**
+     * Get PDFBox font to draw with, resolving it on first call for a Standard 14 font
+     * @return
+     */
+    public PDFont getPDFont() {
+        PDFont result = font;
+
+        if (result == null) {
+            result = font = builtInEncoding ? createBuiltInEncodingFont() : PDType1Font.getStandardFont(baseFont);
+        }
+
+        return result;
+    }
+
+    /**
+     * PDFBox declares WinAnsiEncoding for all Standard 14 fonts, create a dictionary without it
+     */
+    private PDFont createBuiltInEncodingFont() {
+        COSDictionary dictionary = new COSDictionary();
+        dictionary.setItem(COSName.TYPE, COSName.FONT);
+        dictionary.setItem(COSName.SUBTYPE, COSName.TYPE1);
+        dictionary.setName(COSName.BASE_FONT, baseFont);
+
+        return new PDType1Font(dictionary);
+    }
+
+    /**
+     * Width of a code in 1/1000 text space units
+     * @param code Code in font encoding, 0-255
+     * @return
+     */
+    public float getWidth(int code) {
+        return widths[code & 0xff];
+    }
+
+    /**
+     * Unicode character drawn by a code
+     * @param code Code in font encoding, 0-255
+     * @return Character, 0 if code has no glyph or no Unicode equivalent
+     */
+    public char getCharacter(int code) {
+        return characters[code & 0xff];
+    }
+
+    /**
+     * Text width in 1/1000 text space units, same as {@link PDFont#getStringWidth(String)}:
+     * characters are taken as ISO-8859-1 codes, others count as '?', and kerning is not applied
+     *
+     * @param text Text string
+     * @return
+     */
+    public float getStringWidth(String text) {
+        return getStringWidth(text, 0, text.length());
+    }
+
+    /**
+     * Width of text.substring(start, end) in 1/1000 text space units
+     *
+     * @param text Text string
+     * @param start Start index, inclusive
+     * @param end End index, exclusive
+     * @return
+     */
+    public float getStringWidth(String text, int start, int end) {
+        float width = 0;
+
+        for (int i = start; i < end; ++i) {
+            char c = text.charAt(i);
+            width += widths[c < CODES ? c : REPLACEMENT_CODE];
+        }
+
+        return width;
+    }
+
+    /**
+     * Height of font bounding box in 1/1000 text space units
+     * @return
+     */
+    public float getFontBoundingBoxHeight() {
+        return fontBoundingBoxHeight;
+    }
+}
@@ -0,0 +1,100 @@
+package com.github.momogentoo.pdfboxprintln.core;
+
+/**
+ * PreparedImage
+ * <p>
+ * An image already encoded the way it is stored in a PDF image XObject, independent of any document.
+ * <p>
+ * JPEG images keep their original bytes (DCTDecode), other formats are decoded once and stored
+ * as Flate compressed samples, with an optional Flate compressed alpha channel for soft mask.
+ * Instances are immutable, see {@link ImageCache} to create them.
+ */
+public class PreparedImage {
+    public static final String FILTER_DCT = "DCTDecode";
+    public static final String FILTER_FLATE = "FlateDecode";
+
+    private final String key;
+    private final String filter;
+    private final int width;
+    private final int height;
+    private final int bitsPerComponent;
+    private final String colorSpace;
+    private final boolean invertedCMYK;
+    private final byte[] data;
+    private final byte[] alphaData;
+
+    PreparedImage(String key, String filter, int width, int height, int bitsPerComponent, String colorSpace,
+                  boolean invertedCMYK, byte[] data, byte[] alphaData) {
+        this.key = key;
+        this.filter = filter;
+        this.width = width;
+        this.height = height;
+        this.bitsPerComponent = bitsPerComponent;
+        this.colorSpace = colorSpace;
+        this.invertedCMYK = invertedCMYK;
+        this.data = data;
+        this.alphaData = alphaData;
+    }
+
+    /**
+     * @return Content hash of source image bytes, identical images share the same key
+     */
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * @return Stream filter name, {@link #FILTER_DCT} or {@link #FILTER_FLATE}
+     */
+    public String getFilter() {
+        return filter;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getBitsPerComponent() {
+        return bitsPerComponent;
+    }
+
+    /**
+     * @return Device color space name, e.g. DeviceRGB
+     */
+    public String getColorSpace() {
+        return colorSpace;
+    }
+
+    /**
+     * @return true for Adobe CMYK JPEG, which stores inverted samples and needs a Decode array
+     */
+    public boolean isInvertedCMYK() {
+        return invertedCMYK;
+    }
+
+    /**
+     * @return Encoded image samples, shared - must not be modified
+     */
+    public byte[] getData() {
+        return data;
+    }
+
+    /**
+     * @return Flate compressed 8-bit alpha samples, or null if image is opaque. Shared - must not be modified
+     */
+    public byte[] getAlphaData() {
+        return alphaData;
+    }
+
+    /**
+     * Approximate memory held by this image
+     * @return Size in bytes
+     */
+    public int getSize() {
+        return data.length + (alphaData != null ? alphaData.length : 0);
+    }
+}
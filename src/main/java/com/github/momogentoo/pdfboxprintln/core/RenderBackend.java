@@ -0,0 +1,90 @@
+package com.github.momogentoo.pdfboxprintln.core;
+
+import org.apache.pdfbox.exceptions.COSVisitorException;
+
+import java.awt.*;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * RenderBackend
+ * <p>
+ * Target of PDFBuilder drawing calls. PDFBuilder does layout (line flow, wrapping, measuring) and passes
+ * page geometry, text runs, rectangles and images to a backend, which produces the PDF document.
+ * <ul>
+ *     <li>{@link PDFBoxRenderBackend} - builds a PDFBox document, default</li>
+ *     <li>{@link DirectPDFRenderBackend} - writes PDF objects straight into bytes, spilled to a scratch file,
+ *     Standard 14 fonts only</li>
+ * </ul>
+ * Coordinates are in default user space of the page, after landscape rotation is applied by the backend.
+ */
+public interface RenderBackend extends Closeable {
+
+    /**
+     * Finish current page, if any, and start a new one
+     * @param width Media box width
+     * @param height Media box height
+     * @param rotation Page rotation in degrees, 90 for landscape
+     * @throws IOException
+     */
+    void beginPage(float width, float height, int rotation) throws IOException;
+
+    /**
+     * Fill a rectangle on current page
+     * @param x
+     * @param y
+     * @param width
+     * @param height
+     * @param color
+     * @throws IOException
+     */
+    void fillRect(float x, float y, float width, float height, Color color) throws IOException;
+
+    /**
+     * Begin a text object at given position, followed by {@link #showText} calls and {@link #endText()}
+     * @param x
+     * @param y
+     * @param color Text color
+     * @throws IOException
+     */
+    void beginText(float x, float y, Color color) throws IOException;
+
+    /**
+     * Show text in a font, continuing where previous text of the text object ends
+     * @param font Font
+     * @param fontSize Font size
+     * @param text Text, characters are written as single-byte codes of font encoding
+     * @throws IOException
+     */
+    void showText(PreparedFont font, int fontSize, String text) throws IOException;
+
+    void endText() throws IOException;
+
+    /**
+     * Draw an image on current page, an image is embedded only once per document
+     * @param image Prepared image
+     * @param x X of lower left corner
+     * @param y Y of lower left corner
+     * @param width Width on page
+     * @param height Height on page
+     * @throws IOException
+     */
+    void drawImage(PreparedImage image, float x, float y, float width, float height) throws IOException;
+
+    /**
+     * Size in bytes of document produced so far: contents of finished pages and embedded objects.
+     * It approximates the size of saved document, without document structure and cross reference table
+     * @return
+     * @throws IOException
+     */
+    long getOutputSize() throws IOException;
+
+    /**
+     * Finish current page and write document. No drawing is allowed afterwards
+     * @param outputStream
+     * @throws IOException
+     * @throws COSVisitorException
+     */
+    void save(OutputStream outputStream) throws IOException, COSVisitorException;
+}
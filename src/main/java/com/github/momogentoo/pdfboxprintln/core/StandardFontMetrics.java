@@ -0,0 +1,244 @@
+package com.github.momogentoo.pdfboxprintln.core;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * StandardFontMetrics
+ * <p>
+ * Precomputed metrics of a Standard 14 font: glyph width and Unicode character by code, font bounding box and
+ * kerning pairs. Codes are in WinAnsiEncoding, except for Symbol and ZapfDingbats which have no glyph in it and use
+ * their built-in encoding.
+ * <p>
+ * Tables are generated by StandardFontMetricsGenerator (a build tool, not part of the library), committed as resources
+ * and loaded lazily by base font name, one font at a time, by memory mapping them (or reading them when packaged in
+ * a jar). No PDFBox font class is touched: the first use of one makes PDFBox parse the AFM files of all 14 fonts.
+ */
+public class StandardFontMetrics {
+    static final int MAGIC = 0x5042464d; // PBFM
+    static final short VERSION = 3;
+    static final String RESOURCE_SUFFIX = ".bin";
+
+    private static final String RESOURCE_DIRECTORY = "metrics/";
+    private static final int CODES = 256;
+    private static final int HEADER_SIZE = 4 + 2 + 1 + 4 * 4;
+    private static final int CHARACTERS_OFFSET = HEADER_SIZE + CODES * 4;
+    private static final int KERNING_OFFSET = CHARACTERS_OFFSET + CODES * 2 + 4;
+    private static final int KERNING_ENTRY_SIZE = 4;
+
+    /**
+     * Base font names of the Standard 14 fonts, same as PDType1Font.getStandard14Names()
+     */
+    public static final List<String> STANDARD_14_NAMES = Collections.unmodifiableList(Arrays.asList(
+            "Times-Roman", "Times-Bold", "Times-Italic", "Times-BoldItalic",
+            "Helvetica", "Helvetica-Bold", "Helvetica-Oblique", "Helvetica-BoldOblique",
+            "Courier", "Courier-Bold", "Courier-Oblique", "Courier-BoldOblique",
+            "Symbol", "ZapfDingbats"));
+
+    // Loaded metrics by base font name
+    private static final ConcurrentMap<String, StandardFontMetrics> LOADED = new ConcurrentHashMap<String, StandardFontMetrics>();
+
+    private final float[] widths;
+    private final char[] characters;
+    private final boolean builtInEncoding;
+    private final float lowerLeftX;
+    private final float lowerLeftY;
+    private final float upperRightX;
+    private final float upperRightY;
+    private final ByteBuffer table;
+    private final int kerningPairs;
+
+    private StandardFontMetrics(ByteBuffer table) throws IOException {
+        if (table.getInt(0) != MAGIC || table.getShort(4) != VERSION) {
+            throw new IOException("Not a font metrics table of version " + VERSION);
+        }
+
+        this.table = table;
+        builtInEncoding = table.get(6) != 0;
+        lowerLeftX = table.getFloat(7);
+        lowerLeftY = table.getFloat(11);
+        upperRightX = table.getFloat(15);
+        upperRightY = table.getFloat(19);
+
+        // Widths are hot, copy them out of the table
+        widths = new float[CODES];
+        for (int i = 0; i < CODES; ++i) {
+            widths[i] = table.getFloat(HEADER_SIZE + i * 4);
+        }
+
+        characters = new char[CODES];
+        for (int i = 0; i < CODES; ++i) {
+            characters[i] = table.getChar(CHARACTERS_OFFSET + i * 2);
+        }
+
+        kerningPairs = table.getInt(CHARACTERS_OFFSET + CODES * 2);
+    }
+
+    /**
+     * @param baseFont Base font name
+     * @return true if base font is one of the Standard 14 fonts
+     */
+    public static boolean isStandard14(String baseFont) {
+        return STANDARD_14_NAMES.contains(baseFont);
+    }
+
+    /**
+     * Get precomputed metrics of a Standard 14 font
+     *
+     * @param baseFont Base font name
+     * @return Metrics, or null if font is not a Standard 14 font
+     * @throws IllegalStateException If table of a Standard 14 font is missing or broken, i.e. library is incomplete
+     */
+    public static StandardFontMetrics forName(String baseFont) {
+        StandardFontMetrics metrics = LOADED.get(baseFont);
+
+        if (metrics == null) {
+            if (!isStandard14(baseFont)) {
+                return null;
+            }
+
+            metrics = load(baseFont);
+            StandardFontMetrics existing = LOADED.putIfAbsent(baseFont, metrics);
+            if (existing != null) {
+                metrics = existing;
+            }
+        }
+
+        return metrics;
+    }
+
+    private static StandardFontMetrics load(String baseFont) {
+        URL url = StandardFontMetrics.class.getResource(RESOURCE_DIRECTORY + baseFont + RESOURCE_SUFFIX);
+
+        if (url == null) {
+            throw new IllegalStateException("No metrics table for font " + baseFont);
+        }
+
+        try {
+            return new StandardFontMetrics(map(url));
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to load metrics table of font " + baseFont, e);
+        }
+    }
+
+    private static ByteBuffer map(URL url) throws IOException {
+        if ("file".equals(url.getProtocol())) {
+            try {
+                FileChannel channel = FileChannel.open(Paths.get(url.toURI()), StandardOpenOption.READ);
+
+                try {
+                    return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                } finally {
+                    channel.close();
+                }
+            } catch (URISyntaxException e) {
+                // Fall back to reading resource
+            }
+        }
+
+        // Inside a jar, tables can't be mapped, they are a few KB anyway
+        InputStream in = url.openStream();
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return ByteBuffer.wrap(out.toByteArray());
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * @return true if codes are in font's built-in encoding, false for WinAnsiEncoding
+     */
+    public boolean hasBuiltInEncoding() {
+        return builtInEncoding;
+    }
+
+    /**
+     * Width of a code in 1/1000 text space units
+     * @param code Code in font encoding, 0-255
+     * @return
+     */
+    public float getWidth(int code) {
+        return widths[code & 0xff];
+    }
+
+    /**
+     * Unicode character drawn by a code
+     * @param code Code in font encoding, 0-255
+     * @return Character, 0 if code has no glyph or no Unicode equivalent
+     */
+    public char getCharacter(int code) {
+        return characters[code & 0xff];
+    }
+
+    /**
+     * Kerning adjustment between two codes in 1/1000 text space units, negative to move closer
+     * @param first First code
+     * @param second Second code
+     * @return Adjustment, 0 if pair is not kerned
+     */
+    public int getKerning(int first, int second) {
+        int key = ((first & 0xff) << 8) | (second & 0xff);
+        int low = 0;
+        int high = kerningPairs - 1;
+
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int offset = KERNING_OFFSET + middle * KERNING_ENTRY_SIZE;
+            int pair = table.getShort(offset) & 0xffff;
+
+            if (pair < key) {
+                low = middle + 1;
+            }
+            else if (pair > key) {
+                high = middle - 1;
+            }
+            else {
+                return table.getShort(offset + 2);
+            }
+        }
+
+        return 0;
+    }
+
+    public float getFontBoundingBoxHeight() {
+        return upperRightY - lowerLeftY;
+    }
+
+    public float getFontBoundingBoxWidth() {
+        return upperRightX - lowerLeftX;
+    }
+
+    public float getLowerLeftX() {
+        return lowerLeftX;
+    }
+
+    public float getLowerLeftY() {
+        return lowerLeftY;
+    }
+
+    public float getUpperRightX() {
+        return upperRightX;
+    }
+
+    public float getUpperRightY() {
+        return upperRightY;
+    }
+}
@@ -0,0 +1,100 @@
+package com.github.momogentoo.pdfboxprintln.cli;
+
+import com.github.momogentoo.pdfboxprintln.core.DirectPDFRenderBackend;
+import com.github.momogentoo.pdfboxprintln.core.PDFBuilder;
+import com.github.momogentoo.pdfboxprintln.core.PDFPageSize;
+import com.github.momogentoo.pdfboxprintln.core.PageOrientation;
+import org.junit.Test;
+
+import java.io.File;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class TextToPDFOptionsTest {
+
+    private static void assertRejected(String message, String... args) {
+        try {
+            TextToPDFOptions.parse(args);
+            fail("Arguments must be rejected: " + message);
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage(), e.getMessage().startsWith(message));
+        }
+    }
+
+    @Test
+    public void defaultsConvertStdin() {
+        TextToPDFOptions options = TextToPDFOptions.parse(new String[0]);
+
+        assertFalse(options.isHelp());
+        assertFalse(options.isDirectoryMode());
+        assertFalse(options.isDirectBackend());
+        assertNull(options.getOutputFile());
+        assertNull(options.createFontFallbackChain());
+        assertEquals("UTF-8", options.getEncoding().name());
+        assertEquals(4, options.getTabWidth());
+    }
+
+    @Test
+    public void settingsAreAppliedToBuilder() {
+        TextToPDFOptions options = TextToPDFOptions.parse(new String[]{
+                "--page-size", "letter", "--orientation", "landscape", "--font-size", "9", "--margin", "36",
+                "--page-number-pattern", "Page %d", "--no-page-number", "--max-pages", "5",
+                "--max-output-bytes", "1000", "--fonts", "Helvetica, Symbol", "-o", "out.pdf"});
+        PDFBuilder pdfBuilder = new PDFBuilder(new DirectPDFRenderBackend());
+
+        options.applyTo(pdfBuilder);
+
+        assertEquals(PDFPageSize.LETTER, pdfBuilder.getPageSize());
+        assertEquals(PageOrientation.LANDSCAPE, pdfBuilder.getPageOrientation());
+        assertEquals(9, pdfBuilder.getTextFontSize());
+        assertEquals(36f, pdfBuilder.getPageMargin(), 0f);
+        assertEquals("Page %d", pdfBuilder.getPageNumberPattern());
+        assertFalse(pdfBuilder.isOutputPageNumber());
+        assertEquals(5, pdfBuilder.getMaxPages());
+        assertEquals(1000, pdfBuilder.getMaxOutputBytes());
+        assertEquals(2, options.createFontFallbackChain().getFontCount());
+        assertEquals(new File("out.pdf"), options.getOutputFile());
+    }
+
+    @Test
+    public void directoryMode() {
+        TextToPDFOptions options = TextToPDFOptions.parse(new String[]{
+                "--input-dir", "in", "--output-dir", "out", "--workers", "3", "--extension", ".log",
+                "--backend", "direct"});
+
+        assertTrue(options.isDirectoryMode());
+        assertTrue(options.isDirectBackend());
+        assertEquals(new File("in"), options.getInputDirectory());
+        assertEquals(new File("out"), options.getOutputDirectory());
+        assertEquals(3, options.getWorkers());
+        assertEquals(".log", options.getExtension());
+    }
+
+    @Test
+    public void help() {
+        assertTrue(TextToPDFOptions.parse(new String[]{"--help"}).isHelp());
+        assertTrue(TextToPDFOptions.parse(new String[]{"--font-size", "9", "-h"}).isHelp());
+        assertTrue(TextToPDFOptions.usage().contains("--help"));
+    }
+
+    @Test
+    public void unknownOptionIsReportedBeforeMissingValue() {
+        assertRejected("Unknown option --bogus", "--bogus");
+        assertRejected("Unknown option --bogus", "--bogus", "value");
+        assertRejected("Missing value for option --font-size", "--font-size");
+    }
+
+    @Test
+    public void invalidValuesAreRejected() {
+        assertRejected("Value of option --workers must be positive", "--workers", "0");
+        assertRejected("Unknown backend", "--backend", "pdfbox2");
+        assertRejected("Not a standard 14 font", "--fonts", "Arial");
+        assertRejected("TrueType fonts can't extend character coverage", "--fonts", "Helvetica,DejaVuSans.ttf");
+        assertRejected("--input-dir and --output-dir must be used together", "--input-dir", "in");
+        assertRejected("--checkpoint-dir needs --backend direct", "--checkpoint-dir", "ckpt");
+    }
+}
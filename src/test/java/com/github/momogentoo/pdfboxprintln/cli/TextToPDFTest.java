@@ -0,0 +1,129 @@
+package com.github.momogentoo.pdfboxprintln.cli;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.util.PDFTextStripper;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TextToPDFTest {
+    private static final InputStream STDIN = System.in;
+
+    @Rule
+    public TemporaryFolder directory = new TemporaryFolder();
+
+    @After
+    public void restoreStdin() {
+        System.setIn(STDIN);
+    }
+
+    private static String lines(int count) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < count; ++i) {
+            text.append("Line ").append(i).append('\n');
+        }
+        return text.toString();
+    }
+
+    private static void write(File file, String text) throws IOException {
+        FileOutputStream out = new FileOutputStream(file);
+        try {
+            out.write(text.getBytes("UTF-8"));
+        } finally {
+            out.close();
+        }
+    }
+
+    private static String text(File pdf) throws IOException {
+        PDDocument document = PDDocument.loadNonSeq(pdf, null);
+        try {
+            return new PDFTextStripper().getText(document);
+        } finally {
+            document.close();
+        }
+    }
+
+    private static String stats(TextToPDF converter) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        converter.getStats().print(new PrintStream(out, true, "UTF-8"));
+        return out.toString("UTF-8");
+    }
+
+    @Test
+    public void convertsStdinWithEitherBackend() throws Exception {
+        for (String backend : new String[]{"pdfbox", "direct"}) {
+            File output = new File(directory.getRoot(), backend + ".pdf");
+            System.setIn(new ByteArrayInputStream(("First\tline\n" + lines(200)).getBytes("UTF-8")));
+
+            TextToPDF converter = new TextToPDF(TextToPDFOptions.parse(new String[]{
+                    "-o", output.getPath(), "--backend", backend}));
+
+            assertTrue(converter.convertStdin());
+            assertTrue(stats(converter).startsWith("files=1 failed=0 lines=201 "));
+
+            String text = text(output);
+            assertTrue(backend, text.contains("First   line\nLine 0\n"));
+            assertTrue(backend, text.contains("Line 199"));
+        }
+    }
+
+    @Test
+    public void convertsMatchingFilesOfDirectory() throws Exception {
+        File inputDirectory = directory.newFolder("in");
+        File outputDirectory = new File(directory.getRoot(), "out");
+        write(new File(inputDirectory, "a.txt"), lines(10));
+        write(new File(inputDirectory, "b.txt"), lines(300));
+        write(new File(inputDirectory, "c.log"), lines(10));
+
+        TextToPDF converter = new TextToPDF(TextToPDFOptions.parse(new String[]{
+                "--input-dir", inputDirectory.getPath(), "--output-dir", outputDirectory.getPath(), "--workers", "2"}));
+
+        assertTrue(converter.convertDirectory());
+        assertTrue(stats(converter).startsWith("files=2 failed=0 lines=310 "));
+        assertEquals(2, outputDirectory.list().length);
+        assertTrue(text(new File(outputDirectory, "a.pdf")).contains("Line 9"));
+        assertTrue(text(new File(outputDirectory, "b.pdf")).contains("Line 299"));
+    }
+
+    @Test
+    public void stdinLimitIsReportedAsFailure() throws Exception {
+        File output = new File(directory.getRoot(), "out.pdf");
+        System.setIn(new ByteArrayInputStream(lines(1000).getBytes("UTF-8")));
+
+        TextToPDF converter = new TextToPDF(TextToPDFOptions.parse(new String[]{
+                "-o", output.getPath(), "--max-pages", "1"}));
+
+        assertFalse(converter.convertStdin());
+        assertEquals(1, converter.getStats().getFailedFiles());
+        assertTrue(stats(converter).startsWith("files=0 failed=1 "));
+        assertFalse("Truncated output is deleted", output.exists());
+    }
+
+    @Test
+    public void statsUseDotAsDecimalSeparatorInAnyLocale() throws Exception {
+        Locale locale = Locale.getDefault();
+        Locale.setDefault(Locale.GERMANY);
+
+        try {
+            String stats = stats(new TextToPDF(TextToPDFOptions.parse(new String[0])));
+
+            assertTrue(stats, stats.matches("(?s).* elapsed_s=\\d+\\.\\d{3}\\s+lines/s=\\d+\\.\\d .*"));
+        } finally {
+            Locale.setDefault(locale);
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.github.momogentoo.pdfboxprintln.core;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilenameFilter;
+import java.io.IOException;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class CheckpointStoreTest {
+    private static final int ROWS = 400;
+    private static final int INTERVAL = 3;
+    private static final int MAX_PAGES = 10;
+    private static final String NAME = "document";
+
+    @Rule
+    public TemporaryFolder directory = new TemporaryFolder();
+
+    private static String row(int i, String prefix) {
+        StringBuilder row = new StringBuilder(prefix).append(i);
+        for (int j = 0; j < i % 7 * 4; ++j) {
+            row.append(" word (").append(j).append(')');
+        }
+        return row.toString();
+    }
+
+    /**
+     * Print rows from a position on, marking each with a hash of rows before it
+     */
+    private static byte[] print(PDFBuilder pdfBuilder, long position, String prefix) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        try {
+            long fingerprint = 0;
+            for (int i = 0; i < position; ++i) {
+                fingerprint = fingerprint * 31 + row(i, prefix).hashCode();
+            }
+
+            for (int i = (int) position; i < ROWS; ++i) {
+                pdfBuilder.markInputPosition(i, fingerprint);
+                pdfBuilder.printlnWrapped(row(i, prefix), TextAlignment.LEFT);
+                fingerprint = fingerprint * 31 + row(i, prefix).hashCode();
+            }
+            pdfBuilder.save(out);
+        } finally {
+            pdfBuilder.close();
+        }
+
+        return out.toByteArray();
+    }
+
+    private CheckpointStore store() {
+        return new CheckpointStore(directory.getRoot(), NAME, INTERVAL);
+    }
+
+    /**
+     * Run generation with checkpoints until it hits page limit, leaving its checkpoint files behind
+     */
+    private void interrupt() throws Exception {
+        // Spill from first object on, so body is moved from scratch file into checkpoint body
+        PDFBuilder pdfBuilder = new PDFBuilder(new DirectPDFRenderBackend(directory.newFolder(), true, 0));
+        pdfBuilder.setCheckpointStore(store());
+        pdfBuilder.setMaxPages(MAX_PAGES);
+
+        try {
+            print(pdfBuilder, 0, "Row ");
+            fail("Generation must hit page limit");
+        } catch (GenerationLimitException e) {
+            assertEquals(GenerationLimitException.Limit.MAX_PAGES, e.getLimit());
+        }
+        assertTrue(store().exists());
+    }
+
+    private static PDFBuilder resumingBuilder(CheckpointStore store) {
+        PDFBuilder pdfBuilder = new PDFBuilder(new DirectPDFRenderBackend());
+        pdfBuilder.setCheckpointStore(store);
+        return pdfBuilder;
+    }
+
+    @Test
+    public void resumedDocumentIsSameAsUninterruptedDocument() throws Exception {
+        byte[] expected = print(new PDFBuilder(new DirectPDFRenderBackend()), 0, "Row ");
+        interrupt();
+
+        PDFBuilder pdfBuilder = resumingBuilder(store());
+        long position = pdfBuilder.resumeFromCheckpoint();
+        assertTrue(position > 0);
+        assertEquals(MAX_PAGES - MAX_PAGES % INTERVAL, pdfBuilder.getPageNumber());
+
+        assertArrayEquals(expected, print(pdfBuilder, position, "Row "));
+        assertFalse("Checkpoint files are deleted once document is saved", store().exists());
+        assertEquals(0, directory.getRoot().list(new FilenameFilter() {
+            public boolean accept(File dir, String name) {
+                return name.startsWith(NAME);
+            }
+        }).length);
+    }
+
+    @Test
+    public void tornLastCheckpointIsIgnored() throws Exception {
+        byte[] expected = print(new PDFBuilder(new DirectPDFRenderBackend()), 0, "Row ");
+        interrupt();
+
+        // A crash while appending a record, and body bytes written after last checkpoint
+        for (String suffix : new String[]{".ckpt", ".body"}) {
+            FileOutputStream out = new FileOutputStream(new File(directory.getRoot(), NAME + suffix), true);
+            try {
+                out.write(new byte[]{0, 0, 1, 0, 42, 42, 42});
+            } finally {
+                out.close();
+            }
+        }
+
+        PDFBuilder pdfBuilder = resumingBuilder(store());
+        assertArrayEquals(expected, print(pdfBuilder, pdfBuilder.resumeFromCheckpoint(), "Row "));
+    }
+
+    @Test
+    public void changedInputIsRejected() throws Exception {
+        interrupt();
+
+        PDFBuilder pdfBuilder = resumingBuilder(store());
+        try {
+            print(pdfBuilder, pdfBuilder.resumeFromCheckpoint(), "Changed row ");
+            fail("Resuming with other input must fail");
+        } catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().startsWith("Input differs from input of checkpoint"));
+        }
+        assertTrue("Checkpoint is kept", store().exists());
+    }
+
+    @Test
+    public void otherSettingsAreRejectedBeforeBuilderChanges() throws Exception {
+        PDFBuilder fresh = new PDFBuilder(new DirectPDFRenderBackend());
+        fresh.setPageMargin(30);
+        byte[] expected = print(fresh, 0, "Row ");
+        interrupt();
+
+        PDFBuilder pdfBuilder = resumingBuilder(store());
+        pdfBuilder.setPageMargin(30);
+        try {
+            pdfBuilder.resumeFromCheckpoint();
+            fail("Checkpoint written with other settings must be rejected");
+        } catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().startsWith("Builder settings differ"));
+        }
+
+        assertEquals(0, pdfBuilder.getPageNumber());
+        assertEquals(0, ((DirectPDFRenderBackend) pdfBuilder.getRenderBackend()).getPageCount());
+        // Builder starts over as if it never saw the checkpoint
+        assertArrayEquals(expected, print(pdfBuilder, 0, "Row "));
+    }
+
+    @Test
+    public void missingCheckpointStartsFromBeginning() throws Exception {
+        PDFBuilder pdfBuilder = resumingBuilder(store());
+
+        try {
+            assertEquals(-1, pdfBuilder.resumeFromCheckpoint());
+        } finally {
+            pdfBuilder.close();
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.github.momogentoo.pdfboxprintln.core;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.util.PDFTextStripper;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.awt.*;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class DirectPDFRenderBackendTest {
+    private static final int LINES = 500;
+
+    @Rule
+    public TemporaryFolder scratchDirectory = new TemporaryFolder();
+
+    private static byte[] render(RenderBackend backend) throws Exception {
+        PDFBuilder pdfBuilder = new PDFBuilder(backend);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        try {
+            for (int i = 0; i < LINES; ++i) {
+                pdfBuilder.printlnWrapped("Line " + i + " (with parentheses) and a long tail of words to be wrapped"
+                        + " somewhere before the right margin of the page, café \\ done", TextAlignment.LEFT);
+            }
+            pdfBuilder.save(out);
+        } finally {
+            pdfBuilder.close();
+        }
+
+        return out.toByteArray();
+    }
+
+    private static String text(byte[] pdf) throws IOException {
+        PDDocument document = PDDocument.loadNonSeq(new ByteArrayInputStream(pdf), null);
+
+        try {
+            return new PDFTextStripper().getText(document);
+        } finally {
+            document.close();
+        }
+    }
+
+    private static int parseInt(String pdf, int start) {
+        int end = start;
+        while (Character.isDigit(pdf.charAt(end))) {
+            ++end;
+        }
+        return Integer.parseInt(pdf.substring(start, end));
+    }
+
+    @Test
+    public void crossReferenceTablePointsAtObjects() throws Exception {
+        // Spill from first object on, so body is copied out of scratch file
+        String pdf = new String(render(new DirectPDFRenderBackend(scratchDirectory.getRoot(), true, 0)), "ISO-8859-1");
+
+        int startxref = pdf.lastIndexOf("startxref\n");
+        int xref = parseInt(pdf, startxref + "startxref\n".length());
+        assertTrue(pdf.startsWith("xref\n0 ", xref));
+
+        int objects = parseInt(pdf, xref + "xref\n0 ".length());
+        int entry = pdf.indexOf('\n', xref + "xref\n0 ".length()) + 1 + 20;
+
+        for (int i = 1; i < objects; ++i, entry += 20) {
+            assertEquals(" 00000 n \n", pdf.substring(entry + 10, entry + 20));
+            int offset = Integer.parseInt(pdf.substring(entry, entry + 10));
+            assertTrue("Object " + i + " at " + offset, pdf.startsWith(i + " 0 obj\n", offset));
+        }
+        assertTrue(pdf.startsWith("trailer\n<< /Size " + objects + " ", entry));
+
+        PDDocument document = PDDocument.loadNonSeq(new ByteArrayInputStream(pdf.getBytes("ISO-8859-1")), null);
+        try {
+            assertTrue(document.getNumberOfPages() > 1);
+        } finally {
+            document.close();
+        }
+    }
+
+    @Test
+    public void textMatchesPDFBoxBackend() throws Exception {
+        String expected = text(render(new PDFBoxRenderBackend()));
+
+        assertEquals(expected, text(render(new DirectPDFRenderBackend())));
+        assertEquals(expected, text(render(new DirectPDFRenderBackend(scratchDirectory.getRoot(), false, 0))));
+    }
+
+    @Test
+    public void spilledDocumentIsSameAsInMemoryDocument() throws Exception {
+        byte[] inMemory = render(new DirectPDFRenderBackend());
+
+        assertArrayEquals(inMemory, render(new DirectPDFRenderBackend(scratchDirectory.getRoot(), true, 0)));
+        assertEquals("Scratch file is deleted on close", 0, scratchDirectory.getRoot().list().length);
+    }
+
+    private interface Drawing {
+        void draw(DirectPDFRenderBackend backend) throws IOException;
+    }
+
+    @Test
+    public void drawingAfterSaveIsRejected() throws Exception {
+        final PreparedImage image = new PreparedImage("gray", PreparedImage.FILTER_FLATE, 1, 1, 8, "DeviceGray",
+                false, new byte[]{0x78, (byte) 0x9c, 0x63, 0x00, 0x00, 0x00, 0x01, 0x00, 0x01}, null);
+        Drawing[] drawings = {
+                new Drawing() {
+                    public void draw(DirectPDFRenderBackend backend) throws IOException {
+                        backend.beginPage(612, 792, 0);
+                    }
+                },
+                new Drawing() {
+                    public void draw(DirectPDFRenderBackend backend) throws IOException {
+                        backend.fillRect(0, 0, 10, 10, Color.BLACK);
+                    }
+                },
+                new Drawing() {
+                    public void draw(DirectPDFRenderBackend backend) throws IOException {
+                        backend.beginText(0, 0, Color.BLACK);
+                    }
+                },
+                new Drawing() {
+                    public void draw(DirectPDFRenderBackend backend) throws IOException {
+                        backend.showText(PreparedFont.standard("Helvetica"), 12, "text");
+                    }
+                },
+                new Drawing() {
+                    public void draw(DirectPDFRenderBackend backend) throws IOException {
+                        backend.endText();
+                    }
+                },
+                new Drawing() {
+                    public void draw(DirectPDFRenderBackend backend) throws IOException {
+                        backend.drawImage(image, 0, 0, 10, 10);
+                    }
+                },
+                new Drawing() {
+                    public void draw(DirectPDFRenderBackend backend) throws IOException {
+                        backend.save(new ByteArrayOutputStream());
+                    }
+                }
+        };
+
+        for (int i = 0; i < drawings.length; ++i) {
+            DirectPDFRenderBackend backend = new DirectPDFRenderBackend();
+            try {
+                backend.beginPage(612, 792, 0);
+                backend.save(new ByteArrayOutputStream());
+
+                drawings[i].draw(backend);
+                fail("Drawing " + i + " after save must be rejected");
+            } catch (IOException e) {
+                assertEquals("Document is already saved", e.getMessage());
+            } finally {
+                backend.close();
+            }
+        }
+    }
+}
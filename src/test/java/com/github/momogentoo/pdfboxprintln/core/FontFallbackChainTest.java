@@ -0,0 +1,88 @@
+package com.github.momogentoo.pdfboxprintln.core;
+
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class FontFallbackChainTest {
+    private static final char ALPHA = 'α';
+    private static final char CAPITAL_ALPHA = 'Α';
+    private static final char FOR_ALL = '∀';
+    private static final char SUMMATION = '∑';
+    private static final char AIRPLANE = '✈';
+
+    private static FontFallbackChain chain() {
+        return new FontFallbackChain(PreparedFont.standard("Helvetica"), PreparedFont.standard("Symbol"),
+                PreparedFont.standard("ZapfDingbats"));
+    }
+
+    @Test
+    public void greekLetterResolvesToSymbolRun() {
+        List<FontFallbackChain.FontRun> runs = chain().split("a" + ALPHA + "b");
+
+        assertEquals(3, runs.size());
+        assertEquals(0, runs.get(0).getFontIndex());
+        assertEquals(1, runs.get(1).getFontIndex());
+        assertEquals("a", runs.get(1).getEncodedText());
+        assertEquals(0, runs.get(2).getFontIndex());
+    }
+
+    @Test
+    public void greekIsDrawnWithSymbolCodesAndCyrillicIsReplaced() {
+        List<FontFallbackChain.FontRun> runs = chain().split("Ωμέγα Привет");
+
+        assertEquals(4, runs.size());
+        assertEquals(1, runs.get(0).getFontIndex());
+        assertEquals("Wm", runs.get(0).getEncodedText());
+        // No standard font has accented Greek or Cyrillic letters
+        assertEquals(0, runs.get(1).getFontIndex());
+        assertEquals("?", runs.get(1).getEncodedText());
+        assertEquals(1, runs.get(2).getFontIndex());
+        assertEquals("ga", runs.get(2).getEncodedText());
+        assertEquals(0, runs.get(3).getFontIndex());
+        assertEquals(" ??????", runs.get(3).getEncodedText());
+    }
+
+    @Test
+    public void symbolicFontsCoverTheirBuiltInEncoding() {
+        FontFallbackChain chain = chain();
+
+        for (char c : new char[]{ALPHA, CAPITAL_ALPHA, FOR_ALL, SUMMATION, AIRPLANE}) {
+            assertTrue(Integer.toHexString(c), chain.canDisplay(c));
+        }
+        assertFalse(chain.canDisplay('一'));
+        assertEquals(2, chain.split(String.valueOf(AIRPLANE)).get(0).getFontIndex());
+    }
+
+    @Test
+    public void pdfBoxSymbolFontIsDrawnInBuiltInEncoding() {
+        FontFallbackChain chain = new FontFallbackChain(PDType1Font.HELVETICA, PDType1Font.SYMBOL);
+
+        assertEquals(1, chain.split(String.valueOf(SUMMATION)).get(0).getFontIndex());
+        assertTrue(chain.getFont(1).hasBuiltInEncoding());
+    }
+
+    @Test
+    public void symbolFontDictionaryHasNoEncoding() throws Exception {
+        PDFBuilder pdfBuilder = new PDFBuilder(new DirectPDFRenderBackend(false));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        try {
+            pdfBuilder.setFontFallbackChain(chain());
+            pdfBuilder.println("x" + SUMMATION, TextAlignment.LEFT);
+            pdfBuilder.save(out);
+        } finally {
+            pdfBuilder.close();
+        }
+
+        String pdf = new String(out.toByteArray(), "ISO-8859-1");
+        assertTrue(pdf.contains("/BaseFont /Helvetica /Encoding /WinAnsiEncoding >>"));
+        assertTrue(pdf.contains("/BaseFont /Symbol >>"));
+    }
+}
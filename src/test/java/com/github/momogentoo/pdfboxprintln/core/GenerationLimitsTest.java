@@ -0,0 +1,126 @@
+package com.github.momogentoo.pdfboxprintln.core;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class GenerationLimitsTest {
+    private static final int ROWS = 2000;
+
+    private static RenderBackend[] backends() {
+        return new RenderBackend[]{new PDFBoxRenderBackend(), new DirectPDFRenderBackend()};
+    }
+
+    /**
+     * Print rows and save, expecting generation to hit a limit
+     * @param pdfBuilder Builder with limit set
+     * @param token Token to cancel after first rows, null for none
+     */
+    private static void assertHitsLimit(GenerationLimitException.Limit limit, PDFBuilder pdfBuilder,
+                                        CancellationToken token) throws Exception {
+        String backend = pdfBuilder.getRenderBackend().getClass().getSimpleName();
+
+        try {
+            for (int i = 0; i < ROWS; ++i) {
+                if (token != null && i == 10) {
+                    token.cancel();
+                }
+                pdfBuilder.println("Row " + i, TextAlignment.LEFT);
+            }
+            pdfBuilder.save(new ByteArrayOutputStream());
+            fail(backend + " must hit " + limit);
+        } catch (GenerationLimitException e) {
+            assertEquals(backend, limit, e.getLimit());
+        } finally {
+            pdfBuilder.close();
+        }
+
+        assertTrue(backend + " builder is closed", pdfBuilder.isClosed());
+    }
+
+    @Test
+    public void maxPages() throws Exception {
+        for (RenderBackend backend : backends()) {
+            PDFBuilder pdfBuilder = new PDFBuilder(backend);
+            pdfBuilder.setMaxPages(2);
+
+            assertHitsLimit(GenerationLimitException.Limit.MAX_PAGES, pdfBuilder, null);
+            assertEquals(2, pdfBuilder.getPageNumber());
+        }
+    }
+
+    @Test
+    public void deadline() throws Exception {
+        for (RenderBackend backend : backends()) {
+            PDFBuilder pdfBuilder = new PDFBuilder(backend);
+            pdfBuilder.setDeadline(System.currentTimeMillis() - 1);
+
+            assertHitsLimit(GenerationLimitException.Limit.DEADLINE, pdfBuilder, null);
+        }
+    }
+
+    @Test
+    public void cancelled() throws Exception {
+        for (RenderBackend backend : backends()) {
+            PDFBuilder pdfBuilder = new PDFBuilder(backend);
+            CancellationToken token = new CancellationToken();
+            pdfBuilder.setCancellationToken(token);
+
+            assertHitsLimit(GenerationLimitException.Limit.CANCELLED, pdfBuilder, token);
+        }
+    }
+
+    @Test
+    public void maxOutputBytesWhilePrinting() throws Exception {
+        for (RenderBackend backend : backends()) {
+            PDFBuilder pdfBuilder = new PDFBuilder(backend);
+            pdfBuilder.setMaxOutputBytes(4000);
+
+            assertHitsLimit(GenerationLimitException.Limit.MAX_OUTPUT_BYTES, pdfBuilder, null);
+            assertTrue(pdfBuilder.getPageNumber() > 1);
+        }
+    }
+
+    @Test
+    public void maxOutputBytesWhileSaving() throws Exception {
+        for (RenderBackend backend : backends()) {
+            PDFBuilder pdfBuilder = new PDFBuilder(backend);
+            pdfBuilder.setMaxOutputBytes(200);
+
+            try {
+                pdfBuilder.println("A single page fits in no more than 200 bytes until it is saved", TextAlignment.LEFT);
+                pdfBuilder.save(new ByteArrayOutputStream());
+                fail("Saving must hit output limit");
+            } catch (GenerationLimitException e) {
+                assertEquals(GenerationLimitException.Limit.MAX_OUTPUT_BYTES, e.getLimit());
+            } finally {
+                pdfBuilder.close();
+            }
+
+            assertTrue(pdfBuilder.isClosed());
+        }
+    }
+
+    @Test
+    public void closedBuilderRejectsPrinting() throws Exception {
+        for (RenderBackend backend : backends()) {
+            PDFBuilder pdfBuilder = new PDFBuilder(backend);
+            pdfBuilder.setMaxPages(1);
+            assertHitsLimit(GenerationLimitException.Limit.MAX_PAGES, pdfBuilder, null);
+
+            try {
+                pdfBuilder.println("After limit", TextAlignment.LEFT);
+                fail("Closed builder must reject printing");
+            } catch (GenerationLimitException e) {
+                fail("Limit is reported once");
+            } catch (IOException e) {
+                assertEquals("PDFBuilder is closed", e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.github.momogentoo.pdfboxprintln.core;
+
+import org.junit.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class ImageCacheTest {
+
+    private static byte[] png(BufferedImage image) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+
+    private static byte[] inflate(byte[] data, int length) throws DataFormatException {
+        Inflater inflater = new Inflater();
+        inflater.setInput(data);
+        byte[] result = new byte[length];
+        assertEquals(length, inflater.inflate(result));
+        inflater.end();
+        return result;
+    }
+
+    @Test
+    public void graySamplesAreKeptAsTheyAre() throws Exception {
+        BufferedImage image = new BufferedImage(4, 2, BufferedImage.TYPE_BYTE_GRAY);
+        for (int x = 0; x < 4; ++x) {
+            image.getRaster().setSample(x, 0, 0, 64);
+            image.getRaster().setSample(x, 1, 0, 200);
+        }
+
+        PreparedImage prepared = new ImageCache(1 << 20).prepare(png(image));
+
+        assertEquals("DeviceGray", prepared.getColorSpace());
+        assertNull(prepared.getAlphaData());
+        byte[] samples = inflate(prepared.getData(), 8);
+        assertEquals(64, samples[0] & 0xff);
+        assertEquals(200, samples[7] & 0xff);
+    }
+
+    @Test
+    public void rgbSamplesAreKeptAsTheyAre() throws Exception {
+        BufferedImage image = new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB);
+        image.setRGB(0, 0, 0x102030);
+
+        PreparedImage prepared = new ImageCache(1 << 20).prepare(png(image));
+
+        assertEquals("DeviceRGB", prepared.getColorSpace());
+        byte[] samples = inflate(prepared.getData(), 3);
+        assertEquals(0x10, samples[0]);
+        assertEquals(0x20, samples[1]);
+        assertEquals(0x30, samples[2]);
+    }
+}
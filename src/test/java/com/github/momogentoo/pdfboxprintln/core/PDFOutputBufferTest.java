@@ -0,0 +1,63 @@
+package com.github.momogentoo.pdfboxprintln.core;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+
+public class PDFOutputBufferTest {
+
+    private static String toString(PDFOutputBuffer buffer) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        buffer.writeTo(out);
+        return new String(out.toByteArray(), "ISO-8859-1");
+    }
+
+    private static String format(float value) throws IOException {
+        return toString(new PDFOutputBuffer(4).append(value));
+    }
+
+    private static String literal(String text) throws IOException {
+        return toString(new PDFOutputBuffer(4).appendLiteralString(text));
+    }
+
+    @Test
+    public void realsHaveUpToFourFractionDigits() throws Exception {
+        assertEquals("0", format(0f));
+        assertEquals("100", format(100f));
+        assertEquals("1.5", format(1.5f));
+        assertEquals("-0.25", format(-0.25f));
+        assertEquals("12.3457", format(12.34567f));
+        assertEquals("595.2756", format(595.27563f));
+        assertEquals("0.0001", format(0.0001f));
+    }
+
+    @Test
+    public void realsRoundingToZeroHaveNoSign() throws Exception {
+        assertEquals("0", format(-0.00001f));
+        assertEquals("0", format(Float.NaN));
+    }
+
+    @Test
+    public void integersAreWrittenInFull() throws Exception {
+        assertEquals("-9223372036854775807", toString(new PDFOutputBuffer(1).append(-Long.MAX_VALUE)));
+        assertEquals("3000000000", toString(new PDFOutputBuffer(1).append(3000000000L)));
+    }
+
+    @Test
+    public void literalStringEscapesDelimiters() throws Exception {
+        assertEquals("(a\\(b\\)c\\\\)", literal("a(b)c\\"));
+    }
+
+    @Test
+    public void literalStringEscapesNonPrintableBytesAsOctal() throws Exception {
+        assertEquals("(\\012\\011\\177\\200\\351\\377)", literal("\n\t\u007f\u0080éÿ"));
+    }
+
+    @Test
+    public void literalStringReplacesCharactersBeyondSingleByte() throws Exception {
+        assertEquals("(x?y)", literal("xαy"));
+    }
+}
@@ -0,0 +1,162 @@
+package com.github.momogentoo.pdfboxprintln.core;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class PaginatedDocumentTest {
+    private static final int ROWS = 600;
+
+    private static final PDFBuilderFactory FACTORY = new PDFBuilderFactory() {
+        public PDFBuilder createBuilder(RenderBackend backend) {
+            PDFBuilder pdfBuilder = new PDFBuilder(backend);
+            pdfBuilder.setTextFontSize(11);
+            return pdfBuilder;
+        }
+    };
+
+    private static List<String> rows() {
+        List<String> rows = new ArrayList<String>(ROWS);
+        for (int i = 0; i < ROWS; ++i) {
+            StringBuilder row = new StringBuilder("Row ").append(i);
+            // Some rows wrap over several lines, so pages start in the middle of a row
+            for (int j = 0; j < i % 11 * 6; ++j) {
+                row.append(" word").append(j);
+            }
+            rows.add(row.toString());
+        }
+        return rows;
+    }
+
+    /**
+     * Whole document, printed row by row with printlnWrapped
+     */
+    private static byte[] printAll(List<String> rows) throws Exception {
+        PDFBuilder pdfBuilder = FACTORY.createBuilder(new DirectPDFRenderBackend(false));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        try {
+            for (String row : rows) {
+                pdfBuilder.printlnWrapped(row, TextAlignment.LEFT);
+            }
+            pdfBuilder.save(out);
+        } finally {
+            pdfBuilder.close();
+        }
+
+        return out.toByteArray();
+    }
+
+    private static byte[] render(PaginatedDocument document, int firstPage, int lastPage) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        document.renderPages(firstPage, lastPage, new DirectPDFRenderBackend(false), out);
+        return out.toByteArray();
+    }
+
+    /**
+     * Decoded content stream of each page
+     */
+    private static List<byte[]> pageContents(byte[] pdf) throws IOException {
+        PDDocument document = PDDocument.loadNonSeq(new ByteArrayInputStream(pdf), null);
+
+        try {
+            List<byte[]> contents = new ArrayList<byte[]>();
+            for (Object page : document.getDocumentCatalog().getAllPages()) {
+                contents.add(((PDPage) page).getContents().getByteArray());
+            }
+            return contents;
+        } finally {
+            document.close();
+        }
+    }
+
+    private static void assertSamePages(List<byte[]> expected, int firstPage, byte[] range) throws IOException {
+        List<byte[]> actual = pageContents(range);
+
+        assertTrue(actual.size() > 0);
+        for (int i = 0; i < actual.size(); ++i) {
+            assertArrayEquals("Page " + (firstPage + i), expected.get(firstPage - 1 + i), actual.get(i));
+        }
+    }
+
+    @Test
+    public void pagesAreSameAsPagesOfWholeDocument() throws Exception {
+        List<String> rows = rows();
+        List<byte[]> expected = pageContents(printAll(rows));
+        PaginatedDocument document = new PaginatedDocument(rows, TextAlignment.LEFT, FACTORY);
+
+        int pageCount = document.getPageCount();
+        assertEquals(expected.size(), pageCount);
+        assertTrue(pageCount > 10);
+
+        assertSamePages(expected, 1, render(document, 1, 1));
+        assertSamePages(expected, 5, render(document, 5, 5));
+        assertEquals(5, pageContents(render(document, 3, 7)).size());
+        assertSamePages(expected, 3, render(document, 3, 7));
+        assertSamePages(expected, pageCount - 1, render(document, pageCount - 1, pageCount));
+        assertEquals(pageCount, pageContents(render(document, 1, pageCount)).size());
+    }
+
+    @Test
+    public void storedIndexRendersSamePages() throws Exception {
+        List<String> rows = rows();
+        PaginatedDocument document = new PaginatedDocument(rows, TextAlignment.LEFT, FACTORY);
+
+        ByteArrayOutputStream stored = new ByteArrayOutputStream();
+        document.getIndex().writeTo(new DataOutputStream(stored));
+        PaginationIndex index = PaginationIndex.readFrom(new DataInputStream(new ByteArrayInputStream(stored.toByteArray())));
+
+        assertEquals(document.getPageCount(), index.getPageCount());
+        assertEquals(ROWS, index.getRowCount());
+        for (int page = 1; page <= index.getPageCount(); ++page) {
+            assertEquals(document.getIndex().getStartRow(page), index.getStartRow(page));
+            assertEquals(document.getIndex().getWrapOffset(page), index.getWrapOffset(page));
+            assertEquals(document.getIndex().getPageNumber(page), index.getPageNumber(page));
+        }
+
+        PaginatedDocument restored = new PaginatedDocument(rows, TextAlignment.LEFT, FACTORY, index);
+        assertArrayEquals(render(document, 4, 6), render(restored, 4, 6));
+    }
+
+    @Test
+    public void indexOfOtherSettingsIsRejected() throws Exception {
+        List<String> rows = rows();
+        PaginationIndex index = new PaginatedDocument(rows, TextAlignment.LEFT, FACTORY).getIndex();
+
+        PDFBuilderFactory otherFontSize = new PDFBuilderFactory() {
+            public PDFBuilder createBuilder(RenderBackend backend) {
+                PDFBuilder pdfBuilder = new PDFBuilder(backend);
+                pdfBuilder.setTextFontSize(12);
+                return pdfBuilder;
+            }
+        };
+
+        try {
+            render(new PaginatedDocument(rows, TextAlignment.LEFT, otherFontSize, index), 1, 1);
+            fail("Index laid out with other settings must be rejected");
+        } catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().startsWith("Builder settings differ"));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void indexOfOtherRowsIsRejected() throws Exception {
+        List<String> rows = rows();
+        PaginationIndex index = new PaginatedDocument(rows, TextAlignment.LEFT, FACTORY).getIndex();
+
+        new PaginatedDocument(rows.subList(0, ROWS - 1), TextAlignment.LEFT, FACTORY, index);
+    }
+}
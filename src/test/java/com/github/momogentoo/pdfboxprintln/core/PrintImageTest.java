@@ -0,0 +1,111 @@
+package com.github.momogentoo.pdfboxprintln.core;
+
+import org.junit.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PrintImageTest {
+
+    /**
+     * Backend recording where last image is drawn
+     */
+    private static class ImageRecordingBackend extends NullRenderBackend {
+        float x, y, width, height;
+
+        @Override
+        public void drawImage(PreparedImage image, float x, float y, float width, float height) {
+            this.x = x;
+            this.y = y;
+            this.width = width;
+            this.height = height;
+        }
+    }
+
+    /**
+     * Backend recording baselines of text lines on first page, besides last image
+     */
+    private static class FirstPageRecordingBackend extends ImageRecordingBackend {
+        final List<Float> baselines = new ArrayList<Float>();
+        int pages;
+
+        @Override
+        public void beginPage(float width, float height, int rotation) {
+            pages++;
+        }
+
+        @Override
+        public void beginText(float x, float y, Color color) {
+            if (pages == 1) {
+                baselines.add(y);
+            }
+        }
+    }
+
+    private static byte[] png(int width, int height) throws Exception {
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), "png", png);
+        return png.toByteArray();
+    }
+
+    @Test
+    public void linesAfterImageFillRestOfPage() throws Exception {
+        FirstPageRecordingBackend backend = new FirstPageRecordingBackend();
+        PDFBuilder pdfBuilder = new PDFBuilder(backend);
+        pdfBuilder.setOutputPageNumber(false);
+        pdfBuilder.println("text above", TextAlignment.LEFT);
+        pdfBuilder.printImage(png(1, 1), 100, 300, TextAlignment.LEFT);
+
+        for (int i = 0; i < 100; ++i) {
+            pdfBuilder.println("Line " + i, TextAlignment.LEFT);
+        }
+
+        List<Float> baselines = backend.baselines;
+        float step = baselines.get(1) - baselines.get(2);
+        float first = baselines.get(1);
+        float last = baselines.get(baselines.size() - 1);
+        float margin = pdfBuilder.getPageMargin();
+
+        // Lines continue one line below image, down to bottom margin, and no further line would fit
+        assertEquals(backend.y - step, first, 0.01);
+        assertTrue(last >= margin);
+        assertTrue(last - step < margin);
+        assertEquals(1 + (int) ((first - margin) / step) + 1, baselines.size());
+    }
+
+    @Test
+    public void oversizedImageIsScaledToFitPage() throws Exception {
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(2, 4, BufferedImage.TYPE_INT_RGB), "png", png);
+
+        ImageRecordingBackend backend = new ImageRecordingBackend();
+        PDFBuilder pdfBuilder = new PDFBuilder(backend);
+        pdfBuilder.println("text above", TextAlignment.LEFT);
+        pdfBuilder.printImage(png.toByteArray(), 1000, 2000, TextAlignment.LEFT);
+
+        float pageHeight = pdfBuilder.getEffectivePageHeight(pdfBuilder.getCurrentPage());
+        float margin = pdfBuilder.getPageMargin();
+
+        // Moved to a new page and scaled to printable height, aspect ratio kept
+        assertEquals(2, pdfBuilder.getPageNumber());
+        assertEquals(pageHeight - margin * 2, backend.height, 0.01);
+        assertEquals(backend.height / 2, backend.width, 0.01);
+        assertTrue(backend.y >= margin);
+        assertTrue(backend.y + backend.height <= pageHeight);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void emptyImageSizeIsRejected() throws Exception {
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB), "png", png);
+
+        new PDFBuilder(new NullRenderBackend()).printImage(png.toByteArray(), 10, 0, TextAlignment.LEFT);
+    }
+}
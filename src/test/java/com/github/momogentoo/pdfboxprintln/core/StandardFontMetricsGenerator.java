@@ -0,0 +1,242 @@
+package com.github.momogentoo.pdfboxprintln.core;
+
+import org.apache.fontbox.afm.AFMParser;
+import org.apache.fontbox.afm.CharMetric;
+import org.apache.fontbox.afm.FontMetric;
+import org.apache.fontbox.afm.KernPair;
+import org.apache.pdfbox.encoding.AFMEncoding;
+import org.apache.pdfbox.encoding.Encoding;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * StandardFontMetricsGenerator
+ * <p>
+ * Generator of the {@link StandardFontMetrics} tables committed under src/main/resources, run it with the resource
+ * directory as argument after changing table layout. It lives with the tests so that it is not packaged in the
+ * library jar, StandardFontMetricsTest checks committed tables against its output.
+ * <p>
+ * Text fonts use WinAnsiEncoding, like PDFBox declares for them: widths and bounding box are taken from PDFBox itself,
+ * so measuring with the tables gives exactly the same results as measuring with PDFBox. Symbolic fonts (Symbol,
+ * ZapfDingbats) use their built-in encoding, read from their AFM, since none of their glyphs are in WinAnsiEncoding.
+ * Glyph names map to Unicode through PDFBox's glyph list, and for ZapfDingbats through Adobe's zapfdingbats.txt.
+ * Symbol's Delta, Omega and mu are mapped to Greek letters rather than to the symbols the glyph list gives.
+ * Kerning pairs are read from PDFBox's AFM resources.
+ * <p>
+ * Table layout (big endian):
+ * <pre>
+ *   int     magic 'PBFM'
+ *   short   version
+ *   byte    1 if codes are in font's built-in encoding, 0 for WinAnsiEncoding
+ *   float*4 font bounding box: lower left x, lower left y, upper right x, upper right y
+ *   float*256 glyph width of each code in font encoding
+ *   char*256  Unicode character of each code, 0 if code has no glyph
+ *   int     number of kerning pairs
+ *   (short first code &lt;&lt; 8 | second code, short adjustment) * number of kerning pairs, sorted by pair
+ * </pre>
+ */
+public class StandardFontMetricsGenerator {
+    private static final String AFM_RESOURCE_DIRECTORY = "org/apache/pdfbox/resources/afm/";
+    private static final String ZAPF_DINGBATS_GLYPH_LIST = "zapfdingbats.txt";
+    private static final String FONT_SPECIFIC_ENCODING = "FontSpecific";
+
+    // Symbol glyphs which the glyph list maps to look-alike symbols (increment, ohm, micro) instead of Greek letters
+    private static final Map<String, Character> SYMBOL_GREEK_LETTERS = new HashMap<String, Character>();
+    static {
+        SYMBOL_GREEK_LETTERS.put("Delta", '\u0394');
+        SYMBOL_GREEK_LETTERS.put("Omega", '\u03a9');
+        SYMBOL_GREEK_LETTERS.put("mu", '\u03bc');
+    }
+
+    /**
+     * @param args Output directory
+     * @throws IOException
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            // Runs inside Maven's JVM, don't exit it
+            throw new IllegalArgumentException("Usage: StandardFontMetricsGenerator <output directory>");
+        }
+
+        File outputDirectory = new File(args[0]);
+        if (!outputDirectory.isDirectory() && !outputDirectory.mkdirs()) {
+            throw new IOException("Unable to create directory " + outputDirectory);
+        }
+
+        Map<String, Character> zapfDingbatsGlyphs = readGlyphList(ZAPF_DINGBATS_GLYPH_LIST);
+
+        for (String baseFont : StandardFontMetrics.STANDARD_14_NAMES) {
+            File file = new File(outputDirectory, baseFont + StandardFontMetrics.RESOURCE_SUFFIX);
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+
+            try {
+                generate(PDType1Font.getStandardFont(baseFont), readAFM(baseFont), zapfDingbatsGlyphs, out);
+            } finally {
+                out.close();
+            }
+        }
+    }
+
+    private static void generate(PDType1Font font, FontMetric metric, Map<String, Character> zapfDingbatsGlyphs,
+                                 DataOutputStream out) throws IOException {
+        boolean builtInEncoding = FONT_SPECIFIC_ENCODING.equals(metric.getEncodingScheme());
+        Encoding encoding = builtInEncoding ? new AFMEncoding(metric) : font.getFontEncoding();
+
+        out.writeInt(StandardFontMetrics.MAGIC);
+        out.writeShort(StandardFontMetrics.VERSION);
+        out.writeBoolean(builtInEncoding);
+
+        PDRectangle bbox = font.getFontDescriptor().getFontBoundingBox();
+        out.writeFloat(bbox.getLowerLeftX());
+        out.writeFloat(bbox.getLowerLeftY());
+        out.writeFloat(bbox.getUpperRightX());
+        out.writeFloat(bbox.getUpperRightY());
+
+        float[] widths = new float[256];
+        if (builtInEncoding) {
+            // PDFBox measures these fonts through WinAnsiEncoding too, take widths of AFM codes
+            for (CharMetric charMetric : metric.getCharMetrics()) {
+                if (charMetric.getCharacterCode() >= 0 && charMetric.getCharacterCode() < 256) {
+                    widths[charMetric.getCharacterCode()] = charMetric.getWx();
+                }
+            }
+        }
+        else {
+            byte[] code = new byte[1];
+            for (int i = 0; i < 256; ++i) {
+                code[0] = (byte) i;
+                widths[i] = font.getFontWidth(code, 0, 1);
+            }
+        }
+        for (float width : widths) {
+            out.writeFloat(width);
+        }
+
+        char[] characters = new char[256];
+        for (Map.Entry<Integer, String> entry : encoding.getCodeToNameMap().entrySet()) {
+            int i = entry.getKey();
+            Character character = builtInEncoding ? SYMBOL_GREEK_LETTERS.get(entry.getValue()) : null;
+            if (character == null) {
+                character = zapfDingbatsGlyphs.get(entry.getValue());
+            }
+
+            if (character == null) {
+                String name = Encoding.getCharacterForName(entry.getValue());
+                character = name != null && name.length() == 1 ? name.charAt(0) : null;
+            }
+
+            if (i < 0 || i > 255 || character == null) {
+                continue;
+            }
+
+            // A zero width means font program has no glyph for that name, except for blanks
+            if (widths[i] > 0 || Character.isSpaceChar(character)) {
+                characters[i] = character;
+            }
+        }
+        for (char c : characters) {
+            out.writeChar(c);
+        }
+
+        Map<Integer, Short> kerning = readKerning(metric, encoding);
+        out.writeInt(kerning.size());
+        for (Map.Entry<Integer, Short> pair : kerning.entrySet()) {
+            out.writeShort(pair.getKey());
+            out.writeShort(pair.getValue());
+        }
+    }
+
+    private static FontMetric readAFM(String baseFont) throws IOException {
+        InputStream in = StandardFontMetricsGenerator.class.getClassLoader()
+                .getResourceAsStream(AFM_RESOURCE_DIRECTORY + baseFont + ".afm");
+
+        if (in == null) {
+            throw new IOException("No AFM resource for font " + baseFont);
+        }
+
+        try {
+            AFMParser parser = new AFMParser(in);
+            parser.parse();
+            return parser.getResult();
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Read a glyph list of "name;hex codepoint" lines
+     * @return Characters by glyph name
+     */
+    private static Map<String, Character> readGlyphList(String resource) throws IOException {
+        InputStream in = StandardFontMetricsGenerator.class.getResourceAsStream(resource);
+
+        if (in == null) {
+            throw new IOException("No glyph list resource " + resource);
+        }
+
+        Map<String, Character> glyphs = new HashMap<String, Character>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, "US-ASCII"));
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith("#") || line.indexOf(';') < 0) {
+                    continue;
+                }
+
+                String[] fields = line.split(";");
+                glyphs.put(fields[0], (char) Integer.parseInt(fields[1].trim(), 16));
+            }
+        } finally {
+            reader.close();
+        }
+
+        return glyphs;
+    }
+
+    /**
+     * Kerning pairs of font AFM, translated from glyph names to codes of font encoding
+     * @return Adjustment by (first code &lt;&lt; 8 | second code), sorted
+     */
+    private static Map<Integer, Short> readKerning(FontMetric metric, Encoding encoding) {
+        Map<Integer, Short> kerning = new TreeMap<Integer, Short>();
+
+        // Several codes may share a glyph name
+        Map<String, List<Integer>> codesByName = new TreeMap<String, List<Integer>>();
+        for (Map.Entry<Integer, String> entry : encoding.getCodeToNameMap().entrySet()) {
+            if (entry.getKey() < 0 || entry.getKey() > 255) {
+                continue;
+            }
+
+            List<Integer> codes = codesByName.get(entry.getValue());
+            if (codes == null) {
+                codes = new ArrayList<Integer>(1);
+                codesByName.put(entry.getValue(), codes);
+            }
+            codes.add(entry.getKey());
+        }
+
+        for (KernPair pair : metric.getKernPairs()) {
+            List<Integer> firstCodes = codesByName.get(pair.getFirstKernCharacter());
+            List<Integer> secondCodes = codesByName.get(pair.getSecondKernCharacter());
+
+            if (firstCodes == null || secondCodes == null) {
+                continue;
+            }
+
+            for (int first : firstCodes) {
+                for (int second : secondCodes) {
+                    kerning.put((first << 8) | second, (short) Math.round(pair.getX()));
+                }
+            }
+        }
+
+        return kerning;
+    }
+}
@@ -0,0 +1,70 @@
+package com.github.momogentoo.pdfboxprintln.core;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class StandardFontMetricsTest {
+
+    @Rule
+    public TemporaryFolder directory = new TemporaryFolder();
+
+    private static byte[] readResource(String baseFont) throws IOException {
+        InputStream in = StandardFontMetrics.class.getResourceAsStream(
+                "metrics/" + baseFont + StandardFontMetrics.RESOURCE_SUFFIX);
+        assertNotNull("No metrics table for " + baseFont, in);
+
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        } finally {
+            in.close();
+        }
+    }
+
+    @Test
+    public void committedTablesMatchGenerator() throws Exception {
+        StandardFontMetricsGenerator.main(new String[]{directory.getRoot().getPath()});
+
+        assertEquals(14, StandardFontMetrics.STANDARD_14_NAMES.size());
+        for (String baseFont : StandardFontMetrics.STANDARD_14_NAMES) {
+            File generated = new File(directory.getRoot(), baseFont + StandardFontMetrics.RESOURCE_SUFFIX);
+            assertArrayEquals("Table of " + baseFont + " is stale, regenerate it",
+                    Files.readAllBytes(generated.toPath()), readResource(baseFont));
+        }
+    }
+
+    @Test
+    public void everyStandardFontHasMetrics() {
+        for (String baseFont : StandardFontMetrics.STANDARD_14_NAMES) {
+            StandardFontMetrics metrics = StandardFontMetrics.forName(baseFont);
+
+            assertNotNull(baseFont, metrics);
+            assertTrue(baseFont, metrics.getFontBoundingBoxHeight() > 0);
+        }
+        assertNull(StandardFontMetrics.forName("Arial"));
+    }
+
+    @Test
+    public void symbolicFontsHaveCharacters() {
+        assertEquals('α', StandardFontMetrics.forName("Symbol").getCharacter(0x61));
+        assertEquals('✈', StandardFontMetrics.forName("ZapfDingbats").getCharacter(0x28));
+    }
+}
@@ -0,0 +1,154 @@
+package com.github.momogentoo.pdfboxprintln.loadtest;
+
+import com.github.momogentoo.pdfboxprintln.core.DirectPDFRenderBackend;
+import com.github.momogentoo.pdfboxprintln.core.PDFBuilder;
+import com.github.momogentoo.pdfboxprintln.core.PDFPageSize;
+import com.github.momogentoo.pdfboxprintln.core.PageOrientation;
+import com.github.momogentoo.pdfboxprintln.core.TextAlignment;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * DocumentShape
+ * <p>
+ * Describes a generated document: number of rows, cells per row, words per cell, page size and orientation.
+ * Specified as comma separated key=value pairs, e.g.
+ * <pre>name=wide,lines=10000,columns=10,words=2,pageSize=A3,orientation=LANDSCAPE,fontSize=8,backend=direct</pre>
+ * Rows with a single column are printed as wrapped text lines, others as table rows with equal cell widths.
+ */
+public class DocumentShape {
+    private static final String[] WORDS = {
+            "lorem", "ipsum", "dolor", "sit", "amet", "consectetur", "adipiscing", "elit", "sed", "do",
+            "eiusmod", "tempor", "incididunt", "ut", "labore", "et", "dolore", "magna", "aliqua", "1234.56"
+    };
+
+    // Distinct rows generated per shape, cycled through while printing
+    private static final int ROW_POOL_SIZE = 64;
+
+    private String name = "default";
+    private int lines = 10000;
+    private int columns = 1;
+    private int words = 8;
+    private PDFPageSize pageSize = PDFPageSize.A4;
+    private PageOrientation orientation = PageOrientation.PORTRAIT;
+    private int fontSize = 12;
+    private boolean directBackend = false;
+
+    private Serializable[][] rowPool;
+    private Integer[] cellWidths;
+
+    public static DocumentShape parse(String spec) {
+        DocumentShape shape = new DocumentShape();
+
+        for (String pair : spec.split(",")) {
+            String[] keyValue = pair.split("=", 2);
+            if (keyValue.length != 2) {
+                throw new IllegalArgumentException("Invalid shape attribute: " + pair);
+            }
+
+            String key = keyValue[0].trim();
+            String value = keyValue[1].trim();
+
+            if ("name".equals(key)) {
+                shape.name = value;
+            }
+            else if ("lines".equals(key)) {
+                shape.lines = Integer.parseInt(value);
+            }
+            else if ("columns".equals(key)) {
+                shape.columns = Integer.parseInt(value);
+            }
+            else if ("words".equals(key)) {
+                shape.words = Integer.parseInt(value);
+            }
+            else if ("pageSize".equals(key)) {
+                shape.pageSize = PDFPageSize.valueOf(value.toUpperCase());
+            }
+            else if ("orientation".equals(key)) {
+                shape.orientation = PageOrientation.valueOf(value.toUpperCase());
+            }
+            else if ("fontSize".equals(key)) {
+                shape.fontSize = Integer.parseInt(value);
+            }
+            else if ("backend".equals(key)) {
+                shape.directBackend = "direct".equals(value);
+            }
+            else {
+                throw new IllegalArgumentException("Unknown shape attribute: " + key);
+            }
+        }
+
+        if (shape.lines <= 0 || shape.columns <= 0 || shape.words <= 0 || shape.fontSize <= 0) {
+            throw new IllegalArgumentException("Shape attributes must be positive: " + spec);
+        }
+
+        shape.generateRows();
+
+        return shape;
+    }
+
+    private void generateRows() {
+        Random random = new Random(name.hashCode());
+
+        rowPool = new Serializable[ROW_POOL_SIZE][columns];
+        for (Serializable[] row : rowPool) {
+            for (int i = 0; i < columns; ++i) {
+                StringBuilder cell = new StringBuilder();
+                for (int j = 0; j < words; ++j) {
+                    if (j > 0) {
+                        cell.append(' ');
+                    }
+                    cell.append(WORDS[random.nextInt(WORDS.length)]);
+                }
+                row[i] = cell.toString();
+            }
+        }
+
+        cellWidths = new Integer[columns];
+        Arrays.fill(cellWidths, 1);
+    }
+
+    /**
+     * Create a builder with render backend of this shape
+     * @return
+     */
+    public PDFBuilder createBuilder() {
+        return directBackend ? new PDFBuilder(new DirectPDFRenderBackend()) : new PDFBuilder();
+    }
+
+    /**
+     * Print a whole document of this shape
+     * @param pdfBuilder
+     * @throws IOException
+     */
+    public void generate(PDFBuilder pdfBuilder) throws IOException {
+        pdfBuilder.setPageSize(pageSize);
+        pdfBuilder.setPageOrientation(orientation);
+        pdfBuilder.setTextFontSize(fontSize);
+
+        for (int i = 0; i < lines; ++i) {
+            Serializable[] row = rowPool[i % ROW_POOL_SIZE];
+
+            if (columns == 1) {
+                pdfBuilder.printlnWrapped((String) row[0], TextAlignment.LEFT);
+            }
+            else {
+                pdfBuilder.println(row, cellWidths, null);
+            }
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String toString() {
+        return "name=" + name + ",lines=" + lines + ",columns=" + columns + ",words=" + words
+                + ",pageSize=" + pageSize + ",orientation=" + orientation + ",fontSize=" + fontSize
+                + ",backend=" + (directBackend ? "direct" : "pdfbox");
+    }
+}
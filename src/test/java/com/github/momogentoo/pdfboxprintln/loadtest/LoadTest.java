@@ -0,0 +1,268 @@
+package com.github.momogentoo.pdfboxprintln.loadtest;
+
+import com.github.momogentoo.pdfboxprintln.core.PDFBuilder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * LoadTest
+ * <p>
+ * Macro load test of PDFBuilder: generates documents of configurable shapes at configurable concurrency and
+ * records pages/sec, peak heap, allocation rate, GC activity and output size of each shape into a report.
+ * <p>
+ * Run with <code>mvn -Ploadtest verify -Dloadtest.args="..."</code>, options:
+ * <pre>
+ *   --shape SPEC         document shape, repeatable (see {@link DocumentShape}), default shapes if omitted
+ *   --concurrency N      concurrent builders (default 1)
+ *   --documents N        measured documents per shape (default 2 x concurrency)
+ *   --warmup N           unmeasured documents per shape run first (default 1)
+ *   --report FILE        write report to file instead of stdout
+ *   --baseline FILE      fail if results regress against this report
+ *   --tolerance X        allowed relative regression against baseline (default 0.1)
+ * </pre>
+ */
+public class LoadTest {
+    private static final String[] DEFAULT_SHAPES = {
+            "name=plain,lines=20000,columns=1,words=8",
+            "name=table,lines=5000,columns=6,words=3",
+            "name=wrap,lines=2000,columns=3,words=40",
+            "name=wide,lines=10000,columns=10,words=2,pageSize=A3,orientation=LANDSCAPE,fontSize=8"
+    };
+
+    private final List<DocumentShape> shapes = new ArrayList<DocumentShape>();
+    private int concurrency = 1;
+    private int documents = -1;
+    private int warmup = 1;
+    private File reportFile;
+    private File baselineFile;
+    private double tolerance = 0.1;
+
+    public static void main(String[] args) throws Exception {
+        LoadTest loadTest = new LoadTest();
+
+        try {
+            loadTest.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(2);
+        }
+
+        System.exit(loadTest.run() ? 0 : 1);
+    }
+
+    private void parse(String[] args) {
+        for (int i = 0; i < args.length; i += 2) {
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for option " + args[i]);
+            }
+
+            String option = args[i];
+            String value = args[i + 1];
+
+            if ("--shape".equals(option)) {
+                shapes.add(DocumentShape.parse(value));
+            }
+            else if ("--concurrency".equals(option)) {
+                concurrency = Integer.parseInt(value);
+            }
+            else if ("--documents".equals(option)) {
+                documents = Integer.parseInt(value);
+            }
+            else if ("--warmup".equals(option)) {
+                warmup = Integer.parseInt(value);
+            }
+            else if ("--report".equals(option)) {
+                reportFile = new File(value);
+            }
+            else if ("--baseline".equals(option)) {
+                baselineFile = new File(value);
+            }
+            else if ("--tolerance".equals(option)) {
+                tolerance = Double.parseDouble(value);
+            }
+            else {
+                throw new IllegalArgumentException("Unknown option " + option);
+            }
+        }
+
+        if (shapes.isEmpty()) {
+            for (String spec : DEFAULT_SHAPES) {
+                shapes.add(DocumentShape.parse(spec));
+            }
+        }
+        if (concurrency <= 0) {
+            throw new IllegalArgumentException("Concurrency must be positive");
+        }
+        if (documents <= 0) {
+            documents = concurrency * 2;
+        }
+    }
+
+    /**
+     * Run all shapes, write report and compare with baseline
+     * @return false if a regression against baseline is found
+     */
+    private boolean run() throws Exception {
+        LoadTestReport report = new LoadTestReport();
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+
+        try {
+            for (DocumentShape shape : shapes) {
+                System.err.println("Running shape " + shape);
+                runDocuments(executor, shape, warmup);
+                report.add(measure(executor, shape));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        if (reportFile != null) {
+            report.write(reportFile);
+        }
+        else {
+            report.write(new OutputStreamWriter(System.out, "ISO-8859-1"));
+        }
+
+        if (baselineFile != null) {
+            List<String> regressions = report.findRegressions(LoadTestReport.read(baselineFile), tolerance);
+
+            for (String regression : regressions) {
+                System.err.println("REGRESSION " + regression);
+            }
+
+            return regressions.isEmpty();
+        }
+
+        return true;
+    }
+
+    private ShapeResult measure(ExecutorService executor, DocumentShape shape) throws Exception {
+        List<MemoryPoolMXBean> heapPools = new ArrayList<MemoryPoolMXBean>();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                heapPools.add(pool);
+            }
+        }
+
+        System.gc();
+        for (MemoryPoolMXBean pool : heapPools) {
+            pool.resetPeakUsage();
+        }
+
+        long gcCountBefore = getGcCount();
+        long gcTimeBefore = getGcTimeMillis();
+        long start = System.nanoTime();
+
+        Counters counters = runDocuments(executor, shape, documents);
+
+        long elapsed = System.nanoTime() - start;
+
+        long peakHeap = 0;
+        for (MemoryPoolMXBean pool : heapPools) {
+            peakHeap += pool.getPeakUsage().getUsed();
+        }
+
+        return new ShapeResult(shape.getName(), concurrency, documents, counters.pages.get(), counters.outputBytes.get(),
+                elapsed, counters.allocatedBytes.get(), peakHeap,
+                getGcCount() - gcCountBefore, getGcTimeMillis() - gcTimeBefore);
+    }
+
+    private Counters runDocuments(ExecutorService executor, final DocumentShape shape, int count)
+            throws InterruptedException, ExecutionException {
+        final Counters counters = new Counters();
+        List<Future<?>> futures = new ArrayList<Future<?>>(count);
+
+        for (int i = 0; i < count; ++i) {
+            futures.add(executor.submit(() -> {
+                generate(shape, counters);
+                return null;
+            }));
+        }
+
+        for (Future<?> future : futures) {
+            future.get();
+        }
+
+        return counters;
+    }
+
+    private static void generate(DocumentShape shape, Counters counters) throws Exception {
+        long threadId = Thread.currentThread().getId();
+        long allocatedBefore = getThreadAllocatedBytes(threadId);
+
+        PDFBuilder pdfBuilder = shape.createBuilder();
+        NullOutputStream out = new NullOutputStream();
+
+        try {
+            shape.generate(pdfBuilder);
+            pdfBuilder.save(out);
+        } finally {
+            pdfBuilder.close();
+        }
+
+        counters.pages.addAndGet(pdfBuilder.getPageNumber());
+        counters.outputBytes.addAndGet(out.count);
+        counters.allocatedBytes.addAndGet(getThreadAllocatedBytes(threadId) - allocatedBefore);
+    }
+
+    private static long getThreadAllocatedBytes(long threadId) {
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+
+        if (threadMXBean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threadMXBean).getThreadAllocatedBytes(threadId);
+        }
+
+        return 0;
+    }
+
+    private static long getGcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(gc.getCollectionCount(), 0);
+        }
+        return count;
+    }
+
+    private static long getGcTimeMillis() {
+        long time = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            time += Math.max(gc.getCollectionTime(), 0);
+        }
+        return time;
+    }
+
+    private static class Counters {
+        final AtomicLong pages = new AtomicLong();
+        final AtomicLong outputBytes = new AtomicLong();
+        final AtomicLong allocatedBytes = new AtomicLong();
+    }
+
+    private static class NullOutputStream extends OutputStream {
+        long count;
+
+        @Override
+        public void write(int b) throws IOException {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.github.momogentoo.pdfboxprintln.loadtest;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * LoadTestReport
+ * <p>
+ * Results of a load test run, stored as a properties file with one <code>shape.&lt;name&gt;.&lt;metric&gt;</code>
+ * entry per metric, so it can be diffed, parsed by other tools and used as baseline of a later run.
+ */
+public class LoadTestReport {
+    private static final String PREFIX = "shape.";
+
+    static final String PAGES_PER_SECOND = "pages_per_sec";
+    static final String PEAK_HEAP_BYTES = "peak_heap_bytes";
+    static final String ALLOCATED_BYTES_PER_PAGE = "allocated_bytes_per_page";
+
+    private final Map<String, Map<String, String>> metrics = new LinkedHashMap<String, Map<String, String>>();
+
+    public void add(ShapeResult result) {
+        Map<String, String> values = new LinkedHashMap<String, String>();
+
+        values.put("concurrency", String.valueOf(result.getConcurrency()));
+        values.put("documents", String.valueOf(result.getDocuments()));
+        values.put("pages", String.valueOf(result.getPages()));
+        values.put("elapsed_sec", String.format(Locale.ROOT, "%.3f", result.getElapsedSeconds()));
+        values.put(PAGES_PER_SECOND, String.format(Locale.ROOT, "%.1f", result.getPagesPerSecond()));
+        values.put(PEAK_HEAP_BYTES, String.valueOf(result.getPeakHeapBytes()));
+        values.put("allocated_bytes", String.valueOf(result.getAllocatedBytes()));
+        values.put("allocation_rate_bytes_per_sec", String.format(Locale.ROOT, "%.0f", result.getAllocationRate()));
+        values.put(ALLOCATED_BYTES_PER_PAGE, String.valueOf(result.getAllocatedBytesPerPage()));
+        values.put("gc_count", String.valueOf(result.getGcCount()));
+        values.put("gc_time_ms", String.valueOf(result.getGcTimeMillis()));
+        values.put("output_bytes", String.valueOf(result.getOutputBytes()));
+
+        metrics.put(result.getShape(), values);
+    }
+
+    public void write(File file) throws IOException {
+        Writer writer = new OutputStreamWriter(new FileOutputStream(file), "ISO-8859-1");
+
+        try {
+            write(writer);
+        } finally {
+            writer.close();
+        }
+    }
+
+    public void write(Writer writer) throws IOException {
+        // Written by hand instead of Properties.store() to keep entries in order and without timestamp
+        for (Map.Entry<String, Map<String, String>> shape : metrics.entrySet()) {
+            for (Map.Entry<String, String> metric : shape.getValue().entrySet()) {
+                writer.write(PREFIX + shape.getKey() + "." + metric.getKey() + "=" + metric.getValue() + "\n");
+            }
+        }
+        writer.flush();
+    }
+
+    public static LoadTestReport read(File file) throws IOException {
+        Properties properties = new Properties();
+        InputStream in = new FileInputStream(file);
+
+        try {
+            properties.load(in);
+        } finally {
+            in.close();
+        }
+
+        LoadTestReport report = new LoadTestReport();
+        for (String key : properties.stringPropertyNames()) {
+            int metricSeparator = key.lastIndexOf('.');
+
+            if (!key.startsWith(PREFIX) || metricSeparator <= PREFIX.length()) {
+                continue;
+            }
+
+            String shape = key.substring(PREFIX.length(), metricSeparator);
+            Map<String, String> values = report.metrics.get(shape);
+            if (values == null) {
+                values = new LinkedHashMap<String, String>();
+                report.metrics.put(shape, values);
+            }
+            values.put(key.substring(metricSeparator + 1), properties.getProperty(key));
+        }
+
+        return report;
+    }
+
+    /**
+     * Compare with a baseline report: throughput must not drop and memory must not grow by more than tolerance
+     *
+     * @param baseline Baseline report
+     * @param tolerance Allowed relative regression, e.g. 0.1 for 10%
+     * @return Description of each regression, empty if none
+     */
+    public List<String> findRegressions(LoadTestReport baseline, double tolerance) {
+        List<String> regressions = new ArrayList<String>();
+
+        for (Map.Entry<String, Map<String, String>> shape : metrics.entrySet()) {
+            Map<String, String> expected = baseline.metrics.get(shape.getKey());
+            if (expected == null) {
+                continue;
+            }
+
+            check(regressions, shape.getKey(), PAGES_PER_SECOND, shape.getValue(), expected, -tolerance);
+            check(regressions, shape.getKey(), PEAK_HEAP_BYTES, shape.getValue(), expected, tolerance);
+            check(regressions, shape.getKey(), ALLOCATED_BYTES_PER_PAGE, shape.getValue(), expected, tolerance);
+        }
+
+        return regressions;
+    }
+
+    /**
+     * @param tolerance Negative for metrics where higher is better, positive where lower is better
+     */
+    private static void check(List<String> regressions, String shape, String metric,
+                              Map<String, String> actual, Map<String, String> expected, double tolerance) {
+        if (!actual.containsKey(metric) || !expected.containsKey(metric)) {
+            return;
+        }
+
+        double actualValue = Double.parseDouble(actual.get(metric));
+        double limit = Double.parseDouble(expected.get(metric)) * (1 + tolerance);
+
+        if (tolerance < 0 ? actualValue < limit : actualValue > limit) {
+            regressions.add(String.format(Locale.ROOT, "%s.%s: %s, baseline %s, limit %.1f",
+                    shape, metric, actual.get(metric), expected.get(metric), limit));
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.github.momogentoo.pdfboxprintln.loadtest;
+
+/**
+ * ShapeResult
+ * <p>
+ * Metrics measured while generating documents of one shape
+ */
+public class ShapeResult {
+    private final String shape;
+    private final int concurrency;
+    private final int documents;
+    private final long pages;
+    private final long outputBytes;
+    private final long elapsedNanos;
+    private final long allocatedBytes;
+    private final long peakHeapBytes;
+    private final long gcCount;
+    private final long gcTimeMillis;
+
+    public ShapeResult(String shape, int concurrency, int documents, long pages, long outputBytes, long elapsedNanos,
+                       long allocatedBytes, long peakHeapBytes, long gcCount, long gcTimeMillis) {
+        this.shape = shape;
+        this.concurrency = concurrency;
+        this.documents = documents;
+        this.pages = pages;
+        this.outputBytes = outputBytes;
+        this.elapsedNanos = elapsedNanos;
+        this.allocatedBytes = allocatedBytes;
+        this.peakHeapBytes = peakHeapBytes;
+        this.gcCount = gcCount;
+        this.gcTimeMillis = gcTimeMillis;
+    }
+
+    public String getShape() {
+        return shape;
+    }
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    public int getDocuments() {
+        return documents;
+    }
+
+    public long getPages() {
+        return pages;
+    }
+
+    public long getOutputBytes() {
+        return outputBytes;
+    }
+
+    public double getElapsedSeconds() {
+        return elapsedNanos / 1e9;
+    }
+
+    public double getPagesPerSecond() {
+        return pages / getElapsedSeconds();
+    }
+
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    public double getAllocationRate() {
+        return allocatedBytes / getElapsedSeconds();
+    }
+
+    public long getAllocatedBytesPerPage() {
+        return pages > 0 ? allocatedBytes / pages : 0;
+    }
+
+    public long getPeakHeapBytes() {
+        return peakHeapBytes;
+    }
+
+    public long getGcCount() {
+        return gcCount;
+    }
+
+    public long getGcTimeMillis() {
+        return gcTimeMillis;
+    }
+}